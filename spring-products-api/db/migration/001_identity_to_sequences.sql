@@ -0,0 +1,31 @@
+-- Moves primary keys from IDENTITY columns to sequences consumed by Hibernate's pooled optimizer
+-- (allocationSize = 50), which is what allows JDBC insert batching.
+-- Idempotent: run it once on an existing database before starting the new version of the API.
+-- On an empty database it only creates the sequences.
+
+CREATE SEQUENCE IF NOT EXISTS categories_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS suppliers_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS products_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS orders_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS order_items_seq START WITH 1 INCREMENT BY 50;
+
+-- Move each sequence past the ids already handed out by the IDENTITY columns.
+-- The pooled optimizer uses the block (value - 49 .. value), so the next value is MAX(id) + 50.
+-- Sequences already ahead of the table are left untouched.
+SELECT setval('categories_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM categories), false)
+WHERE (SELECT last_value FROM categories_seq) <= (SELECT COALESCE(MAX(id), 0) FROM categories);
+SELECT setval('suppliers_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM suppliers), false)
+WHERE (SELECT last_value FROM suppliers_seq) <= (SELECT COALESCE(MAX(id), 0) FROM suppliers);
+SELECT setval('products_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM products), false)
+WHERE (SELECT last_value FROM products_seq) <= (SELECT COALESCE(MAX(id), 0) FROM products);
+SELECT setval('orders_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM orders), false)
+WHERE (SELECT last_value FROM orders_seq) <= (SELECT COALESCE(MAX(id), 0) FROM orders);
+SELECT setval('order_items_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM order_items), false)
+WHERE (SELECT last_value FROM order_items_seq) <= (SELECT COALESCE(MAX(id), 0) FROM order_items);
+
+-- Ids are now always provided by the application.
+ALTER TABLE categories ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE suppliers ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE products ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE orders ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE order_items ALTER COLUMN id DROP IDENTITY IF EXISTS;
@@ -0,0 +1,4 @@
+-- Optimistic-lock version of products, used for strong ETags and conflict detection.
+-- Idempotent: run it on an existing database before starting the new version of the API.
+
+ALTER TABLE products ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,4 @@
+-- Index behind the incremental refresh of the catalog snapshot (products updated since a watermark).
+-- Idempotent: run it on an existing database before starting the new version of the API.
+
+CREATE INDEX IF NOT EXISTS idx_products_updated_at ON products (updated_at);
@@ -0,0 +1,12 @@
+-- Append-only log behind GET /api/v1/products/changes (product change feed).
+-- Idempotent: run it on an existing database before starting the new version of the API.
+
+CREATE TABLE IF NOT EXISTS product_changes (
+    seq                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    product_id           BIGINT      NOT NULL,
+    change_type          VARCHAR(20) NOT NULL,
+    previous_category_id BIGINT,
+    changed_at           TIMESTAMP   NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_product_changes_changed_at ON product_changes (changed_at);
@@ -0,0 +1,7 @@
+-- Indexes behind the keyset pagination of order listings on (order_date, id), overall and
+-- per status or customer email.
+-- Idempotent: run it on an existing database before starting the new version of the API.
+
+CREATE INDEX IF NOT EXISTS idx_orders_order_date_id ON orders (order_date, id);
+CREATE INDEX IF NOT EXISTS idx_orders_status_order_date_id ON orders (status, order_date, id);
+CREATE INDEX IF NOT EXISTS idx_orders_customer_email_order_date_id ON orders (customer_email, order_date, id);
@@ -0,0 +1,11 @@
+-- Idempotency-Key of order creations (POST /api/v1/orders), bound to the created order.
+-- Idempotent: run it on an existing database before starting the new version of the API.
+
+CREATE TABLE IF NOT EXISTS order_idempotency_keys (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    request_hash    VARCHAR(64)  NOT NULL,
+    order_id        BIGINT       NOT NULL,
+    created_at      TIMESTAMP    NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_order_idempotency_keys_created_at ON order_idempotency_keys (created_at);
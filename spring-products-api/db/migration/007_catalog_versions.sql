@@ -0,0 +1,9 @@
+-- Shared catalog version counters behind the list ETags (categories; products use the change feed).
+-- Idempotent: run it on an existing database before starting the new version of the API.
+
+CREATE TABLE IF NOT EXISTS catalog_versions (
+    name    VARCHAR(50) PRIMARY KEY,
+    version BIGINT      NOT NULL
+);
+
+INSERT INTO catalog_versions (name, version) VALUES ('categories', 0) ON CONFLICT (name) DO NOTHING;
@@ -0,0 +1,4 @@
+-- Index behind the keyset pagination of product listings on (created_at, id), newest first.
+-- Idempotent: run it on an existing database before starting the new version of the API.
+
+CREATE INDEX IF NOT EXISTS idx_products_created_at_id ON products (created_at, id);
@@ -0,0 +1,55 @@
+package com.formation.products.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the PostgreSQL full-text (tsvector) and trigram indexes used by product search, and
+ * the lower(name) prefix index used by the name prefix filter of {@code ProductFilterQuery}.
+ * Hibernate DDL cannot express extensions or expression indexes, so they are created here,
+ * idempotently, once the schema exists. The expressions must stay identical to the ones in
+ * {@code ProductRepository.searchIds} for the planner to use the indexes.
+ */
+@Component
+public class ProductSearchIndexInitializer implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndexInitializer.class);
+
+    private static final String[] STATEMENTS = {
+        "CREATE INDEX IF NOT EXISTS idx_products_name_prefix ON products (lower(name) text_pattern_ops)",
+        "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+        """
+        CREATE INDEX IF NOT EXISTS idx_products_search_fts ON products USING GIN (
+            to_tsvector('simple', coalesce(name, '') || ' ' || coalesce(description, '') || ' ' || coalesce(sku, ''))
+        )
+        """,
+        """
+        CREATE INDEX IF NOT EXISTS idx_products_search_trgm ON products USING GIN (
+            (coalesce(name, '') || ' ' || coalesce(sku, '')) gin_trgm_ops
+        )
+        """
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductSearchIndexInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            for (String statement : STATEMENTS) {
+                jdbcTemplate.execute(statement);
+            }
+            log.info("Product search indexes are ready");
+        } catch (DataAccessException ex) {
+            log.warn("Could not create product search indexes, search will fall back to sequential scans", ex);
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.formation.products.controller;
 
+import com.formation.products.dto.CategoryTransferJob;
 import com.formation.products.exception.CategoryNotFoundException;
 import com.formation.products.model.Category;
 import com.formation.products.service.CategoryService;
+import com.formation.products.service.CategoryTransferService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -10,6 +12,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
@@ -22,26 +25,37 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final CategoryTransferService categoryTransferService;
 
-    public CategoryController(CategoryService categoryService) {
+    public CategoryController(CategoryService categoryService, CategoryTransferService categoryTransferService) {
         this.categoryService = categoryService;
+        this.categoryTransferService = categoryTransferService;
     }
 
     @GetMapping
-    public ResponseEntity<List<Category>> getAllCategories() {
-        return ResponseEntity.ok(categoryService.getAllCategories());
+    public ResponseEntity<List<Category>> getAllCategories(WebRequest request) {
+        String etag = ETags.of(categoryService.getCategoriesTag());
+        if (ETags.isNotModified(request, etag)) {
+            return ETags.notModified(etag);
+        }
+        return ResponseEntity.ok().eTag(etag).body(categoryService.getAllCategories());
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Category> getCategory(@PathVariable Long id,
-                                                @RequestParam(defaultValue = "false") boolean withProducts) {
+                                                @RequestParam(defaultValue = "false") boolean withProducts,
+                                                WebRequest request) {
+        String etag = ETags.of(categoryService.getCategoriesTag());
+        if (ETags.isNotModified(request, etag)) {
+            return ETags.notModified(etag);
+        }
         if (withProducts) {
             return categoryService.getCategoryWithProducts(id)
-                    .map(ResponseEntity::ok)
+                    .map(category -> ResponseEntity.ok().eTag(etag).body(category))
                     .orElseThrow(() -> new CategoryNotFoundException(id));
         }
         return categoryService.getCategory(id)
-                .map(ResponseEntity::ok)
+                .map(category -> ResponseEntity.ok().eTag(etag).body(category))
                 .orElseThrow(() -> new CategoryNotFoundException(id));
     }
 
@@ -69,6 +83,26 @@ public class CategoryController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Moves every product of the category to another one in the background; poll the returned
+     * Location for progress.
+     */
+    @PostMapping("/{id}/transfer")
+    public ResponseEntity<CategoryTransferJob> transferProducts(@PathVariable Long id, @RequestParam Long to) {
+        CategoryTransferJob job = categoryTransferService.submit(id, to);
+        URI location = ServletUriComponentsBuilder
+                .fromCurrentContextPath()
+                .path("/api/v1/categories/transfers/{jobId}")
+                .buildAndExpand(job.getId())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(job);
+    }
+
+    @GetMapping("/transfers/{jobId}")
+    public ResponseEntity<CategoryTransferJob> getTransfer(@PathVariable String jobId) {
+        return ResponseEntity.ok(categoryTransferService.getJob(jobId));
+    }
+
     public static class CategoryCreateRequest {
         @NotBlank(message = "Le nom de la catégorie est obligatoire")
         @Size(min = 2, max = 100, message = "Le nom doit contenir entre {min} et {max} caractères")
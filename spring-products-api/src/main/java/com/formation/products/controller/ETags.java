@@ -0,0 +1,67 @@
+package com.formation.products.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Strong ETag helpers for conditional GETs (If-None-Match).
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(String value) {
+        return "\"" + value + "\"";
+    }
+
+    /**
+     * A product embeds its category, so its tag also carries the categories version: a rename
+     * changes the representation without changing the product version.
+     */
+    static String forProduct(Long id, Long version, long categoriesVersion) {
+        return of("product-" + id + "-" + version + "-" + categoriesVersion);
+    }
+
+    /**
+     * Extracts the product version from a product ETag sent in If-Match, or null when there is
+     * none. The categories version is ignored: optimistic locking only concerns the product.
+     */
+    static Long parseProductVersion(Long id, String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        String prefix = "\"product-" + id + "-";
+        String value = ifMatch.trim();
+        if (!value.startsWith(prefix) || !value.endsWith("\"")) {
+            throw new IllegalArgumentException("If-Match invalide pour le produit " + id + ": " + ifMatch);
+        }
+        String versions = value.substring(prefix.length(), value.length() - 1);
+        int separator = versions.indexOf('-');
+        try {
+            return Long.valueOf(separator >= 0 ? versions.substring(0, separator) : versions);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("If-Match invalide pour le produit " + id + ": " + ifMatch);
+        }
+    }
+
+    static boolean isNotModified(WebRequest request, String etag) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+}
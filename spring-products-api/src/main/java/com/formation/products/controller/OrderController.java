@@ -1,7 +1,10 @@
 package com.formation.products.controller;
 
+import com.formation.products.dto.OrderRequest;
 import com.formation.products.model.Order;
 import com.formation.products.model.OrderStatus;
+import com.formation.products.service.OrderIdempotencyService;
+import com.formation.products.service.OrderIngestionService;
 import com.formation.products.service.OrderService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -16,7 +19,6 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -25,23 +27,38 @@ import java.util.Map;
 @SecurityRequirement(name = "bearerAuth")
 public class OrderController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final OrderService orderService;
+    private final OrderIngestionService orderIngestionService;
+    private final OrderIdempotencyService orderIdempotencyService;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService,
+                           OrderIngestionService orderIngestionService,
+                           OrderIdempotencyService orderIdempotencyService) {
         this.orderService = orderService;
+        this.orderIngestionService = orderIngestionService;
+        this.orderIdempotencyService = orderIdempotencyService;
     }
 
+    /**
+     * Lists orders newest first, optionally filtered by customer email or status, one keyset
+     * page at a time: pass the returned nextCursor as after to get the following page.
+     * With fields/expand=items, rows only contain the requested fields.
+     */
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders(
+    public ResponseEntity<Object> getAllOrders(
             @RequestParam(required = false) String customerEmail,
-            @RequestParam(required = false) OrderStatus status) {
-        if (customerEmail != null) {
-            return ResponseEntity.ok(orderService.getOrdersByCustomerEmail(customerEmail));
-        }
-        if (status != null) {
-            return ResponseEntity.ok(orderService.getOrdersByStatus(status));
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String expand) {
+        if (fields != null || expand != null) {
+            return ResponseEntity.ok(orderService.getOrderFields(fields, expand, customerEmail, status, after, limit));
         }
-        return ResponseEntity.ok(orderService.getAllOrders());
+        return ResponseEntity.ok(orderService.getOrders(customerEmail, status, after, limit));
     }
 
     @GetMapping("/{id}")
@@ -49,9 +66,52 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getOrderById(id));
     }
 
+    /**
+     * Creates an order. With an Idempotency-Key header, retries of the same request return the
+     * order created by the first one (marked with Idempotent-Replayed: true) instead of creating
+     * another.
+     */
     @PostMapping
-    public ResponseEntity<Order> createOrder(@Valid @RequestBody CreateOrderRequest request) {
-        Order created = orderService.createOrder(
+    public ResponseEntity<Order> createOrder(@Valid @RequestBody CreateOrderRequest request,
+                                             @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        Order created;
+        boolean replayed = false;
+        if (idempotencyKey == null) {
+            created = orderService.createOrder(
+                    request.getCustomerName(),
+                    request.getCustomerEmail(),
+                    request.getProductsAndQuantities(),
+                    request.getOrderDate(),
+                    request.getDeliveryDate());
+        } else {
+            OrderIdempotencyService.Outcome outcome = orderIdempotencyService.createOrder(
+                    idempotencyKey,
+                    request.getCustomerName(),
+                    request.getCustomerEmail(),
+                    request.getProductsAndQuantities(),
+                    request.getOrderDate(),
+                    request.getDeliveryDate());
+            created = outcome.getOrder();
+            replayed = outcome.isReplayed();
+        }
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}")
+                .buildAndExpand(created.getId())
+                .toUri();
+        ResponseEntity.BodyBuilder response = ResponseEntity.created(location);
+        if (replayed) {
+            response.header(IDEMPOTENT_REPLAYED_HEADER, "true");
+        }
+        return response.body(created);
+    }
+
+    /**
+     * Asynchronous variant of order creation: the order is validated and queued, then written
+     * in the background. Poll the returned Location for the outcome; 429 when the queue is full.
+     */
+    @PostMapping("/requests")
+    public ResponseEntity<OrderRequest> submitOrder(@Valid @RequestBody CreateOrderRequest request) {
+        OrderRequest submitted = orderIngestionService.submit(
                 request.getCustomerName(),
                 request.getCustomerEmail(),
                 request.getProductsAndQuantities(),
@@ -59,9 +119,25 @@ public class OrderController {
                 request.getDeliveryDate());
         URI location = ServletUriComponentsBuilder.fromCurrentRequest()
                 .path("/{id}")
-                .buildAndExpand(created.getId())
+                .buildAndExpand(submitted.getId())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(submitted);
+    }
+
+    /**
+     * Outcome of an asynchronous order; once completed, Location points to the created order.
+     */
+    @GetMapping("/requests/{id}")
+    public ResponseEntity<OrderRequest> getOrderRequest(@PathVariable String id) {
+        OrderRequest request = orderIngestionService.getRequest(id);
+        if (request.getStatus() != OrderRequest.Status.COMPLETED) {
+            return ResponseEntity.ok(request);
+        }
+        URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/v1/orders/{id}")
+                .buildAndExpand(request.getOrderId())
                 .toUri();
-        return ResponseEntity.created(location).body(created);
+        return ResponseEntity.ok().location(location).body(request);
     }
 
     @PatchMapping("/{id}/status")
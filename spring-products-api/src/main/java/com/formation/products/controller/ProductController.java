@@ -1,18 +1,44 @@
 package com.formation.products.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.formation.products.dto.ProductBatch;
+import com.formation.products.dto.ProductChangePage;
+import com.formation.products.dto.ProductFacets;
+import com.formation.products.dto.ProductFilter;
+import com.formation.products.dto.ProductImportReport;
+import com.formation.products.dto.ProductSummary;
+import com.formation.products.dto.StockAdjustment;
+import com.formation.products.dto.StockAdjustmentResult;
 import com.formation.products.exception.ProductNotFoundException;
 import com.formation.products.model.Product;
+import com.formation.products.service.ProductChangeFeed;
+import com.formation.products.service.ProductFacetService;
+import com.formation.products.service.ProductImportService;
+import com.formation.products.service.ProductSearchService;
 import com.formation.products.service.ProductService;
+import com.formation.products.service.ProductStockService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/v1/products")
@@ -20,31 +46,81 @@ import java.util.List;
 @SecurityRequirement(name = "bearerAuth")
 public class ProductController {
 
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    private static final String CSV_MEDIA_TYPE = "text/csv";
+
     private final ProductService productService;
+    private final ProductSearchService productSearchService;
+    private final ProductImportService productImportService;
+    private final ProductStockService productStockService;
+    private final ProductFacetService productFacetService;
+    private final ProductChangeFeed productChangeFeed;
+    private final ObjectMapper objectMapper;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService,
+                             ProductSearchService productSearchService,
+                             ProductImportService productImportService,
+                             ProductStockService productStockService,
+                             ProductFacetService productFacetService,
+                             ProductChangeFeed productChangeFeed,
+                             ObjectMapper objectMapper) {
         this.productService = productService;
+        this.productSearchService = productSearchService;
+        this.productImportService = productImportService;
+        this.productStockService = productStockService;
+        this.productFacetService = productFacetService;
+        this.productChangeFeed = productChangeFeed;
+        this.objectMapper = objectMapper;
     }
 
     /**
-     * Returns products with optional filtering by category and optional pagination.
-     * If page/size is provided, a paginated payload is returned; otherwise a plain list.
+     * Returns product summaries with optional filtering by category and optional pagination.
+     * If after/limit is provided, a keyset (cursor) page is returned; if page/size is provided,
+     * an offset page is returned; otherwise a plain list. With fields/expand, rows only contain
+     * the requested fields and relations. With ids, the given products are returned instead
+     * (multi-get, see {@link #getProductsByIds}).
      */
     @GetMapping
     public ResponseEntity<Object> getAllProducts(
+            @RequestParam(required = false) List<Long> ids,
             @RequestParam(required = false) Long categoryId,
             @RequestParam(required = false) String category,
             @RequestParam(required = false) Integer page,
-            @RequestParam(required = false) Integer size) {
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String expand,
+            WebRequest request) {
+
+        // Read the catalog version before the data, so a concurrent write can only make the tag older.
+        String etag = ETags.of(productService.getProductsTag());
+        if (ETags.isNotModified(request, etag)) {
+            return ETags.notModified(etag);
+        }
+
+        if (ids != null) {
+            return ResponseEntity.ok().eTag(etag).body(productService.getProducts(ids));
+        }
+
+        if (fields != null || expand != null) {
+            return ResponseEntity.ok().eTag(etag)
+                    .body(getProductFields(fields, expand, categoryId, category, page, size, after, limit));
+        }
+
+        if (after != null || limit != null) {
+            int resolvedLimit = limit != null ? limit : 20;
+            return ResponseEntity.ok().eTag(etag).body(productService.getProductsAfter(after, resolvedLimit));
+        }
 
         if (page != null || size != null) {
             int resolvedPage = page != null ? page : 0;
             int resolvedSize = size != null ? size : 10;
-            Page<Product> productsPage = productService.getAllProducts(resolvedPage, resolvedSize);
-            return ResponseEntity.ok(productsPage);
+            Page<ProductSummary> productsPage = productService.getAllProducts(resolvedPage, resolvedSize);
+            return ResponseEntity.ok().eTag(etag).body(productsPage);
         }
 
-        List<Product> products;
+        List<ProductSummary> products;
         if (categoryId != null) {
             products = productService.getProductsByCategoryId(categoryId);
         } else if (category != null && !category.trim().isEmpty()) {
@@ -52,14 +128,137 @@ public class ProductController {
         } else {
             products = productService.getAllProducts();
         }
-        return ResponseEntity.ok(products);
+        return ResponseEntity.ok().eTag(etag).body(products);
+    }
+
+    private Object getProductFields(String fields, String expand, Long categoryId, String category,
+                                    Integer page, Integer size, String after, Integer limit) {
+        if (after != null || limit != null) {
+            return productService.getProductFieldsAfter(fields, expand, after, limit != null ? limit : 20);
+        }
+        if (page != null || size != null) {
+            return productService.getProductFields(fields, expand, page != null ? page : 0, size != null ? size : 10);
+        }
+        return productService.getProductFields(fields, expand, categoryId, category);
+    }
+
+    /**
+     * Multi-get for id lists too long for a query string: body is a JSON array of ids.
+     * Same result as GET /api/v1/products?ids=...
+     */
+    @PostMapping("/by-ids")
+    public ResponseEntity<ProductBatch> getProductsByIds(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(productService.getProducts(ids));
+    }
+
+    /**
+     * Exports the full catalog as NDJSON (one product per line), writing each row as soon as it
+     * is read from the database instead of buffering the whole list in memory.
+     */
+    @GetMapping(value = "/export", produces = NDJSON_MEDIA_TYPE)
+    public void exportProducts(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON_MEDIA_TYPE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        OutputStream out = response.getOutputStream();
+        ObjectWriter writer = objectMapper.writer();
+        productService.exportProducts(product -> {
+            try {
+                out.write(writer.writeValueAsBytes(product));
+                out.write('\n');
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        out.flush();
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<Page<Product>> searchProducts(@RequestParam String q,
+                                                        @RequestParam(defaultValue = "0") int page,
+                                                        @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(productSearchService.search(q, page, size));
+    }
+
+    /**
+     * Products matching every given filter (any combination), newest first, paginated.
+     */
+    @GetMapping("/filter")
+    public ResponseEntity<Page<ProductSummary>> filterProducts(@RequestParam(required = false) Long categoryId,
+                                                               @RequestParam(required = false) Long supplierId,
+                                                               @RequestParam(required = false) BigDecimal minPrice,
+                                                               @RequestParam(required = false) BigDecimal maxPrice,
+                                                               @RequestParam(required = false) Boolean inStock,
+                                                               @RequestParam(required = false) String namePrefix,
+                                                               @RequestParam(defaultValue = "0") int page,
+                                                               @RequestParam(defaultValue = "20") int size,
+                                                               WebRequest request) {
+        String etag = ETags.of(productService.getProductsTag());
+        if (ETags.isNotModified(request, etag)) {
+            return ETags.notModified(etag);
+        }
+        ProductFilter filter = new ProductFilter(categoryId, supplierId, minPrice, maxPrice, inStock, namePrefix);
+        return ResponseEntity.ok().eTag(etag).body(productService.getProducts(filter, page, size));
+    }
+
+    /**
+     * Facet counts (category, supplier, price bucket, stock) of the filtered products together
+     * with the first page of results.
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacets> getProductFacets(@RequestParam(required = false) Long categoryId,
+                                                          @RequestParam(required = false) Long supplierId,
+                                                          @RequestParam(required = false) BigDecimal minPrice,
+                                                          @RequestParam(required = false) BigDecimal maxPrice,
+                                                          @RequestParam(required = false) Boolean inStock,
+                                                          @RequestParam(required = false) String namePrefix,
+                                                          @RequestParam(defaultValue = "20") int size,
+                                                          WebRequest request) {
+        String etag = ETags.of(productService.getProductsTag());
+        if (ETags.isNotModified(request, etag)) {
+            return ETags.notModified(etag);
+        }
+        ProductFilter filter = new ProductFilter(categoryId, supplierId, minPrice, maxPrice, inStock, namePrefix);
+        return ResponseEntity.ok().eTag(etag).body(productFacetService.getFacets(filter, size));
+    }
+
+    /**
+     * Change feed: entries committed after since (a seq), oldest first. Pass the returned next
+     * value as since on the following call.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<ProductChangePage> getProductChanges(@RequestParam(defaultValue = "0") long since,
+                                                               @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(productChangeFeed.getChanges(since, limit));
     }
 
+    @GetMapping("/price-range")
+    public ResponseEntity<Page<Product>> getProductsByPriceRange(@RequestParam BigDecimal min,
+                                                                 @RequestParam BigDecimal max,
+                                                                 @RequestParam(defaultValue = "0") int page,
+                                                                 @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.getProductsByPriceRange(min, max, page, size));
+    }
+
+    /**
+     * Returns a product with a strong ETag built from its version and the categories version.
+     * When If-None-Match is sent, only the versions are looked up and 304 is returned without
+     * loading or serializing the entity.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProduct(@PathVariable Long id) {
-        return productService.getProduct(id)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<Product> getProduct(@PathVariable Long id, WebRequest request) {
+        long categoriesVersion = productService.getCategoriesVersion();
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            Optional<Long> version = productService.getProductVersion(id);
+            if (version.isPresent()) {
+                String etag = ETags.forProduct(id, version.get(), categoriesVersion);
+                if (ETags.isNotModified(request, etag)) {
+                    return ETags.notModified(etag);
+                }
+            }
+        }
+        Product product = productService.getProduct(id)
                 .orElseThrow(() -> new ProductNotFoundException(id));
+        return ResponseEntity.ok().eTag(ETags.forProduct(id, product.getVersion(), categoriesVersion)).body(product);
     }
 
     @PostMapping
@@ -73,11 +272,43 @@ public class ProductController {
         return ResponseEntity.created(location).body(created);
     }
 
+    /**
+     * Bulk import from a streamed CSV (header: name,description,price,stock,sku,categoryId,supplierId)
+     * or NDJSON upload. Returns a per-row error report; valid rows are imported.
+     */
+    @PostMapping(value = "/import", consumes = {CSV_MEDIA_TYPE, NDJSON_MEDIA_TYPE})
+    public ResponseEntity<ProductImportReport> importProducts(HttpServletRequest request) throws IOException {
+        ProductImportService.Format format = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.parseMediaType(CSV_MEDIA_TYPE))
+                ? ProductImportService.Format.CSV
+                : ProductImportService.Format.NDJSON;
+        return ResponseEntity.ok(productImportService.importProducts(request.getInputStream(), format));
+    }
+
+    /**
+     * Full update with optimistic locking: the expected version comes from If-Match (product ETag)
+     * or from the body's version field; a mismatch returns 409 instead of overwriting.
+     */
     @PutMapping("/{id}")
     public ResponseEntity<Product> updateProduct(@PathVariable Long id,
-                                                 @Valid @RequestBody Product product) {
-        Product updated = productService.updateProduct(id, product);
-        return ResponseEntity.ok(updated);
+                                                 @Valid @RequestBody Product product,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = ETags.parseProductVersion(id, ifMatch);
+        if (expectedVersion != null) {
+            product.setVersion(expectedVersion);
+        }
+        long categoriesVersion = productService.getCategoriesVersion();
+        Product updated = productService.withHotStock(productService.updateProduct(id, product));
+        return ResponseEntity.ok().eTag(ETags.forProduct(id, updated.getVersion(), categoriesVersion)).body(updated);
+    }
+
+    /**
+     * Applies a batch of signed stock deltas in one transaction. Items that would make stock
+     * negative or target unknown products are reported in the per-item results, not as an error.
+     */
+    @PatchMapping("/stock")
+    public ResponseEntity<List<StockAdjustmentResult>> adjustStocks(@Valid @RequestBody List<StockAdjustment> adjustments) {
+        return ResponseEntity.ok(productStockService.adjustStocks(adjustments));
     }
 
     @PatchMapping("/{id}/stock")
@@ -102,7 +333,7 @@ public class ProductController {
     }
 
     @GetMapping("/fast")
-    public ResponseEntity<List<Product>> getProductsFast() {
+    public ResponseEntity<List<ProductSummary>> getProductsFast() {
         return ResponseEntity.ok(productService.getAllProductsFast());
     }
 
@@ -10,6 +10,7 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -138,6 +139,30 @@ public class StatsController {
         return ResponseEntity.ok(statsService.getCountByStatus());
     }
 
+    /** Statistiques du cache produits (hits, misses, evictions) */
+    @GetMapping("/product-cache")
+    public ResponseEntity<Map<String, Object>> productCacheStats() {
+        return ResponseEntity.ok(statsService.getProductCacheStats());
+    }
+
+    /** Statistiques du filtre de Bloom des SKU (requêtes évitées, faux positifs observés) */
+    @GetMapping("/sku-filter")
+    public ResponseEntity<Map<String, Object>> skuFilterStats() {
+        return ResponseEntity.ok(statsService.getSkuFilterStats());
+    }
+
+    /** Écart entre compteurs de stock en mémoire (hot inventory) et base */
+    @GetMapping("/hot-inventory")
+    public ResponseEntity<List<Map<String, Object>>> hotInventoryDrift() {
+        return ResponseEntity.ok(statsService.getHotInventoryDrift(false));
+    }
+
+    /** Réaligne les compteurs hot inventory sur la base; renvoie l'écart constaté avant réalignement */
+    @PostMapping("/hot-inventory/reconcile")
+    public ResponseEntity<List<Map<String, Object>>> reconcileHotInventory() {
+        return ResponseEntity.ok(statsService.getHotInventoryDrift(true));
+    }
+
     /** Produits les plus commandés */
     @GetMapping("/most-ordered-products")
     public ResponseEntity<List<MostOrderedProduct>> mostOrderedProducts(
@@ -0,0 +1,112 @@
+package com.formation.products.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of an asynchronous category transfer. Updated by the worker thread and read by
+ * pollers, hence the volatile fields.
+ */
+public class CategoryTransferJob {
+
+    public enum Status { PENDING, RUNNING, COMPLETED, FAILED }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Long fromCategoryId;
+    private final Long toCategoryId;
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+    private final AtomicLong moved = new AtomicLong();
+    private volatile Status status = Status.PENDING;
+    private volatile long total;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    public CategoryTransferJob(Long fromCategoryId, Long toCategoryId) {
+        this.fromCategoryId = fromCategoryId;
+        this.toCategoryId = toCategoryId;
+    }
+
+    public void start(long total) {
+        this.total = total;
+        this.startedAt = LocalDateTime.now();
+        this.status = Status.RUNNING;
+    }
+
+    public void addMoved(long count) {
+        moved.addAndGet(count);
+    }
+
+    public void complete() {
+        this.finishedAt = LocalDateTime.now();
+        this.status = Status.COMPLETED;
+    }
+
+    public void fail(String error) {
+        this.error = error;
+        this.finishedAt = LocalDateTime.now();
+        this.status = Status.FAILED;
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getFromCategoryId() {
+        return fromCategoryId;
+    }
+
+    public Long getToCategoryId() {
+        return toCategoryId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Products in the source category when the job started; products added meanwhile are moved too.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    public long getMoved() {
+        return moved.get();
+    }
+
+    /**
+     * Percentage of the initial total already moved (100 once completed).
+     */
+    public int getProgress() {
+        if (status == Status.COMPLETED) {
+            return 100;
+        }
+        long currentTotal = total;
+        return currentTotal == 0 ? 0 : (int) Math.min(100, moved.get() * 100 / currentTotal);
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
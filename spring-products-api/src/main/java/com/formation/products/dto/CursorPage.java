@@ -0,0 +1,38 @@
+package com.formation.products.dto;
+
+import java.util.List;
+
+/**
+ * Keyset pagination payload: one slice of results plus the opaque cursor of the next slice.
+ * No total count is computed, so the cost of a page does not grow with the table size.
+ */
+public class CursorPage<T> {
+
+    private List<T> content;
+    private int limit;
+    private String nextCursor;
+    private boolean hasNext;
+
+    public CursorPage(List<T> content, int limit, String nextCursor) {
+        this.content = content;
+        this.limit = limit;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+}
@@ -0,0 +1,30 @@
+package com.formation.products.dto;
+
+/**
+ * One facet value and the number of matching products. The value is null for products without
+ * the facet (e.g. no supplier).
+ */
+public class FacetCount {
+
+    private final Object value;
+    private final String label;
+    private final long count;
+
+    public FacetCount(Object value, String label, long count) {
+        this.value = value;
+        this.label = label;
+        this.count = count;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
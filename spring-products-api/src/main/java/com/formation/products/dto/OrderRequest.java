@@ -0,0 +1,72 @@
+package com.formation.products.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Tracking of an order accepted for asynchronous ingestion. Updated by the writer threads and
+ * read by pollers, hence the volatile fields.
+ */
+public class OrderRequest {
+
+    public enum Status { QUEUED, COMPLETED, FAILED }
+
+    private final String id = UUID.randomUUID().toString();
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+    private volatile Status status = Status.QUEUED;
+    private volatile Long orderId;
+    private volatile String orderNumber;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    public void complete(Long orderId, String orderNumber) {
+        this.orderId = orderId;
+        this.orderNumber = orderNumber;
+        this.finishedAt = LocalDateTime.now();
+        this.status = Status.COMPLETED;
+    }
+
+    public void fail(String error) {
+        this.error = error;
+        this.finishedAt = LocalDateTime.now();
+        this.status = Status.FAILED;
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Id of the created order once completed.
+     */
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public String getOrderNumber() {
+        return orderNumber;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,28 @@
+package com.formation.products.dto;
+
+import com.formation.products.model.Product;
+
+import java.util.List;
+
+/**
+ * Result of a multi-get: the products found, in request order, and the requested ids that do
+ * not exist.
+ */
+public class ProductBatch {
+
+    private final List<Product> products;
+    private final List<Long> missingIds;
+
+    public ProductBatch(List<Product> products, List<Long> missingIds) {
+        this.products = products;
+        this.missingIds = missingIds;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public List<Long> getMissingIds() {
+        return missingIds;
+    }
+}
@@ -0,0 +1,53 @@
+package com.formation.products.dto;
+
+import com.formation.products.model.ProductChangeType;
+
+import java.time.LocalDateTime;
+
+/**
+ * One change feed entry. product holds the current state of the product, null for deletes
+ * (and when the product was deleted by a later change).
+ */
+public class ProductChangeEntry {
+
+    private final long seq;
+    private final Long productId;
+    private final ProductChangeType type;
+    private final Long previousCategoryId;
+    private final LocalDateTime changedAt;
+    private final ProductSummary product;
+
+    public ProductChangeEntry(long seq, Long productId, ProductChangeType type, Long previousCategoryId,
+                              LocalDateTime changedAt, ProductSummary product) {
+        this.seq = seq;
+        this.productId = productId;
+        this.type = type;
+        this.previousCategoryId = previousCategoryId;
+        this.changedAt = changedAt;
+        this.product = product;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public ProductChangeType getType() {
+        return type;
+    }
+
+    public Long getPreviousCategoryId() {
+        return previousCategoryId;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public ProductSummary getProduct() {
+        return product;
+    }
+}
@@ -0,0 +1,32 @@
+package com.formation.products.dto;
+
+import java.util.List;
+
+/**
+ * One page of the change feed. next is the seq to pass as since on the following call; it is
+ * returned even when the page is empty, so consumers can poll with it.
+ */
+public class ProductChangePage {
+
+    private final List<ProductChangeEntry> changes;
+    private final long next;
+    private final boolean hasMore;
+
+    public ProductChangePage(List<ProductChangeEntry> changes, long next, boolean hasMore) {
+        this.changes = changes;
+        this.next = next;
+        this.hasMore = hasMore;
+    }
+
+    public List<ProductChangeEntry> getChanges() {
+        return changes;
+    }
+
+    public long getNext() {
+        return next;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+}
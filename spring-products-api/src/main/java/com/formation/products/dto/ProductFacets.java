@@ -0,0 +1,51 @@
+package com.formation.products.dto;
+
+import java.util.List;
+
+/**
+ * Facet counts of a filtered product listing, returned with its first page.
+ */
+public class ProductFacets {
+
+    private final long total;
+    private final List<FacetCount> categories;
+    private final List<FacetCount> suppliers;
+    private final List<FacetCount> priceBuckets;
+    private final List<FacetCount> stock;
+    private final List<ProductSummary> content;
+
+    public ProductFacets(long total, List<FacetCount> categories, List<FacetCount> suppliers,
+                         List<FacetCount> priceBuckets, List<FacetCount> stock, List<ProductSummary> content) {
+        this.total = total;
+        this.categories = categories;
+        this.suppliers = suppliers;
+        this.priceBuckets = priceBuckets;
+        this.stock = stock;
+        this.content = content;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public List<FacetCount> getCategories() {
+        return categories;
+    }
+
+    public List<FacetCount> getSuppliers() {
+        return suppliers;
+    }
+
+    public List<FacetCount> getPriceBuckets() {
+        return priceBuckets;
+    }
+
+    public List<FacetCount> getStock() {
+        return stock;
+    }
+
+    /** First page of the filtered products, newest first. */
+    public List<ProductSummary> getContent() {
+        return content;
+    }
+}
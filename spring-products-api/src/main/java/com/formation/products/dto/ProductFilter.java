@@ -0,0 +1,64 @@
+package com.formation.products.dto;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+/**
+ * Optional product filters shared by listing endpoints; null fields do not filter.
+ */
+public class ProductFilter {
+
+    private final Long categoryId;
+    private final Long supplierId;
+    private final BigDecimal minPrice;
+    private final BigDecimal maxPrice;
+    private final Boolean inStock;
+    private final String namePrefix;
+
+    public ProductFilter(Long categoryId, Long supplierId, BigDecimal minPrice, BigDecimal maxPrice,
+                         Boolean inStock, String namePrefix) {
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("minPrice must be lower than or equal to maxPrice");
+        }
+        this.categoryId = categoryId;
+        this.supplierId = supplierId;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.inStock = inStock;
+        this.namePrefix = namePrefix == null || namePrefix.isBlank() ? null : namePrefix.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public boolean matches(ProductSummary product) {
+        return (categoryId == null || categoryId.equals(product.getCategoryId()))
+                && (supplierId == null || supplierId.equals(product.getSupplierId()))
+                && (minPrice == null || product.getPrice().compareTo(minPrice) >= 0)
+                && (maxPrice == null || product.getPrice().compareTo(maxPrice) <= 0)
+                && (inStock == null || inStock == (product.getStock() > 0))
+                && (namePrefix == null || product.getName().toLowerCase(Locale.ROOT).startsWith(namePrefix));
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public Long getSupplierId() {
+        return supplierId;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public Boolean getInStock() {
+        return inStock;
+    }
+
+    /** Lower-cased name prefix; matching is case-insensitive. */
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+}
@@ -0,0 +1,75 @@
+package com.formation.products.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk product import. Only the first {@code maxErrors} row errors are kept,
+ * so the report stays small even when a large file is mostly invalid.
+ */
+public class ProductImportReport {
+
+    private long totalRows;
+    private long imported;
+    private long failed;
+    private boolean errorsTruncated;
+    private final List<RowError> errors = new ArrayList<>();
+    private final int maxErrors;
+
+    public ProductImportReport(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    public void addRows(long count) {
+        totalRows += count;
+    }
+
+    public void addImported(long count) {
+        imported += count;
+    }
+
+    public void addError(long line, String sku, String message) {
+        failed++;
+        if (errors.size() < maxErrors) {
+            errors.add(new RowError(line, sku, message));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public static class RowError {
+        private final long line;
+        private final String sku;
+        private final String message;
+
+        public RowError(long line, String sku, String message) {
+            this.line = line;
+            this.sku = sku;
+            this.message = message;
+        }
+
+        public long getLine() { return line; }
+        public String getSku() { return sku; }
+        public String getMessage() { return message; }
+    }
+}
@@ -0,0 +1,38 @@
+package com.formation.products.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * One product row of a bulk import file (CSV column or NDJSON property names).
+ */
+public class ProductImportRow {
+
+    private String name;
+    private String description;
+    private BigDecimal price;
+    private Integer stock;
+    private String sku;
+    private Long categoryId;
+    private Long supplierId;
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public BigDecimal getPrice() { return price; }
+    public void setPrice(BigDecimal price) { this.price = price; }
+
+    public Integer getStock() { return stock; }
+    public void setStock(Integer stock) { this.stock = stock; }
+
+    public String getSku() { return sku; }
+    public void setSku(String sku) { this.sku = sku; }
+
+    public Long getCategoryId() { return categoryId; }
+    public void setCategoryId(Long categoryId) { this.categoryId = categoryId; }
+
+    public Long getSupplierId() { return supplierId; }
+    public void setSupplierId(Long supplierId) { this.supplierId = supplierId; }
+}
@@ -0,0 +1,106 @@
+package com.formation.products.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Read model for product listings, with category and supplier flattened to id and name.
+ * Built straight from JPQL constructor expressions, so no entity is hydrated nor tracked by the
+ * persistence context. Constructor used by:
+ * SELECT NEW ... ProductSummary(p.id, p.name, p.price, p.stock, p.sku, c.id, c.name, s.id, s.name, p.createdAt)
+ */
+public class ProductSummary {
+
+    private Long id;
+    private String name;
+    private BigDecimal price;
+    private int stock;
+    private String sku;
+    private Long categoryId;
+    private String categoryName;
+    private Long supplierId;
+    private String supplierName;
+    private LocalDateTime createdAt;
+
+    public ProductSummary(Long id, String name, BigDecimal price, int stock, String sku,
+                          Long categoryId, String categoryName,
+                          Long supplierId, String supplierName,
+                          LocalDateTime createdAt) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.stock = stock;
+        this.sku = sku;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.supplierId = supplierId;
+        this.supplierName = supplierName;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public Long getSupplierId() {
+        return supplierId;
+    }
+
+    public String getSupplierName() {
+        return supplierName;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProductSummary other)) {
+            return false;
+        }
+        return stock == other.stock
+                && Objects.equals(id, other.id)
+                && Objects.equals(name, other.name)
+                && Objects.equals(price, other.price)
+                && Objects.equals(sku, other.sku)
+                && Objects.equals(categoryId, other.categoryId)
+                && Objects.equals(categoryName, other.categoryName)
+                && Objects.equals(supplierId, other.supplierId)
+                && Objects.equals(supplierName, other.supplierName)
+                && Objects.equals(createdAt, other.createdAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, price, stock, sku, categoryId, categoryName, supplierId, supplierName, createdAt);
+    }
+}
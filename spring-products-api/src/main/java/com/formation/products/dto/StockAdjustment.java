@@ -0,0 +1,28 @@
+package com.formation.products.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * One signed stock correction of a batch adjustment.
+ */
+public class StockAdjustment {
+
+    @NotNull(message = "L'id du produit est obligatoire")
+    private Long id;
+
+    private int delta;
+
+    public StockAdjustment() {
+    }
+
+    public StockAdjustment(Long id, int delta) {
+        this.id = id;
+        this.delta = delta;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public int getDelta() { return delta; }
+    public void setDelta(int delta) { this.delta = delta; }
+}
@@ -0,0 +1,40 @@
+package com.formation.products.dto;
+
+/**
+ * Outcome of one item of a batch stock adjustment.
+ */
+public class StockAdjustmentResult {
+
+    public enum Status { UPDATED, INSUFFICIENT_STOCK, NOT_FOUND }
+
+    private Long id;
+    private int delta;
+    private Status status;
+    private Integer stock;
+
+    public StockAdjustmentResult(Long id, int delta, Status status, Integer stock) {
+        this.id = id;
+        this.delta = delta;
+        this.status = status;
+        this.stock = stock;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * New stock when updated, current stock when insufficient, null when not found.
+     */
+    public Integer getStock() {
+        return stock;
+    }
+}
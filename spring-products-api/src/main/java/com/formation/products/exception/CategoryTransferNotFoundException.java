@@ -0,0 +1,7 @@
+package com.formation.products.exception;
+
+public class CategoryTransferNotFoundException extends RuntimeException {
+    public CategoryTransferNotFoundException(String id) {
+        super("Transfert de catégorie non trouvé avec l'ID: " + id);
+    }
+}
@@ -0,0 +1,7 @@
+package com.formation.products.exception;
+
+public class OrderQueueFullException extends RuntimeException {
+    public OrderQueueFullException(int capacity) {
+        super("File des commandes pleine (" + capacity + " en attente), réessayez dans quelques instants");
+    }
+}
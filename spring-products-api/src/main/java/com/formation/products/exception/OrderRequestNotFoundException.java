@@ -0,0 +1,7 @@
+package com.formation.products.exception;
+
+public class OrderRequestNotFoundException extends RuntimeException {
+    public OrderRequestNotFoundException(String id) {
+        super("Demande de commande non trouvée avec l'ID: " + id);
+    }
+}
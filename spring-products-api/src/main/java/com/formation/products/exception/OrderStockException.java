@@ -0,0 +1,40 @@
+package com.formation.products.exception;
+
+import java.util.List;
+
+/**
+ * Raised when an order cannot be placed because some of its lines exceed the available stock.
+ * Every short line is reported, not only the first one.
+ */
+public class OrderStockException extends RuntimeException {
+
+    private final List<Shortage> shortages;
+
+    public OrderStockException(List<Shortage> shortages) {
+        super("Stock insuffisant pour " + shortages.size() + " ligne(s) de la commande");
+        this.shortages = shortages;
+    }
+
+    public List<Shortage> getShortages() {
+        return shortages;
+    }
+
+    public static class Shortage {
+        private final Long productId;
+        private final String productName;
+        private final int requested;
+        private final int available;
+
+        public Shortage(Long productId, String productName, int requested, int available) {
+            this.productId = productId;
+            this.productName = productName;
+            this.requested = requested;
+            this.available = available;
+        }
+
+        public Long getProductId() { return productId; }
+        public String getProductName() { return productName; }
+        public int getRequested() { return requested; }
+        public int getAvailable() { return available; }
+    }
+}
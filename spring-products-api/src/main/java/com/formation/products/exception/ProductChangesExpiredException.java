@@ -0,0 +1,7 @@
+package com.formation.products.exception;
+
+public class ProductChangesExpiredException extends RuntimeException {
+    public ProductChangesExpiredException(long since) {
+        super("Les changements postérieurs à " + since + " ne sont plus disponibles, une resynchronisation complète est nécessaire");
+    }
+}
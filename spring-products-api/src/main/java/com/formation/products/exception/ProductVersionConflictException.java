@@ -0,0 +1,9 @@
+package com.formation.products.exception;
+
+public class ProductVersionConflictException extends RuntimeException {
+    public ProductVersionConflictException(Long id, Long expectedVersion, Long currentVersion) {
+        super(String.format(
+            "Le produit %d a été modifié entre-temps. Version attendue: %d, version actuelle: %d",
+            id, expectedVersion, currentVersion));
+    }
+}
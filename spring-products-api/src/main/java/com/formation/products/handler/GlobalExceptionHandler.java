@@ -2,16 +2,25 @@ package com.formation.products.handler;
 
 import com.formation.products.exception.CategoryNotEmptyException;
 import com.formation.products.exception.CategoryNotFoundException;
+import com.formation.products.exception.CategoryTransferNotFoundException;
 import com.formation.products.exception.DuplicateProductException;
 import com.formation.products.exception.ErrorResponse;
 import com.formation.products.exception.FieldError;
+import com.formation.products.exception.IdempotencyKeyConflictException;
 import com.formation.products.exception.InsufficientStockException;
+import com.formation.products.exception.OrderQueueFullException;
+import com.formation.products.exception.OrderRequestNotFoundException;
+import com.formation.products.exception.OrderStockException;
+import com.formation.products.exception.ProductChangesExpiredException;
 import com.formation.products.exception.ProductNotFoundException;
+import com.formation.products.exception.ProductVersionConflictException;
 import com.formation.products.exception.SupplierNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -29,7 +38,9 @@ public class GlobalExceptionHandler {
     private static final String BAD_REQUEST = "Bad Request";
     private static final String NOT_FOUND = "Not Found";
     private static final String CONFLICT = "Conflict";
+    private static final String GONE = "Gone";
     private static final String UNAUTHORIZED = "Unauthorized";
+    private static final String TOO_MANY_REQUESTS = "Too Many Requests";
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidation(
@@ -64,6 +75,22 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
+    @ExceptionHandler(CategoryTransferNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleCategoryTransferNotFound(
+            CategoryTransferNotFoundException ex, HttpServletRequest request) {
+        ErrorResponse error = new ErrorResponse(404, NOT_FOUND, ex.getMessage());
+        error.setPath(request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
+    @ExceptionHandler(OrderRequestNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleOrderRequestNotFound(
+            OrderRequestNotFoundException ex, HttpServletRequest request) {
+        ErrorResponse error = new ErrorResponse(404, NOT_FOUND, ex.getMessage());
+        error.setPath(request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
     @ExceptionHandler(SupplierNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleSupplierNotFound(
             SupplierNotFoundException ex, HttpServletRequest request) {
@@ -72,6 +99,24 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
+    @ExceptionHandler(ProductChangesExpiredException.class)
+    public ResponseEntity<ErrorResponse> handleChangesExpired(
+            ProductChangesExpiredException ex, HttpServletRequest request) {
+        ErrorResponse error = new ErrorResponse(410, GONE, ex.getMessage());
+        error.setPath(request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.GONE).body(error);
+    }
+
+    @ExceptionHandler(OrderQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleOrderQueueFull(
+            OrderQueueFullException ex, HttpServletRequest request) {
+        ErrorResponse error = new ErrorResponse(429, TOO_MANY_REQUESTS, ex.getMessage());
+        error.setPath(request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
     @ExceptionHandler(DuplicateProductException.class)
     public ResponseEntity<ErrorResponse> handleConflict(
             DuplicateProductException ex, HttpServletRequest request) {
@@ -80,6 +125,31 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     }
 
+    @ExceptionHandler(ProductVersionConflictException.class)
+    public ResponseEntity<ErrorResponse> handleVersionConflict(
+            ProductVersionConflictException ex, HttpServletRequest request) {
+        ErrorResponse error = new ErrorResponse(409, CONFLICT, ex.getMessage());
+        error.setPath(request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLocking(
+            OptimisticLockingFailureException ex, HttpServletRequest request) {
+        ErrorResponse error = new ErrorResponse(409, CONFLICT,
+                "La ressource a été modifiée par une autre requête, rechargez-la puis réessayez");
+        error.setPath(request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(IdempotencyKeyConflictException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyConflict(
+            IdempotencyKeyConflictException ex, HttpServletRequest request) {
+        ErrorResponse error = new ErrorResponse(409, CONFLICT, ex.getMessage());
+        error.setPath(request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
     @ExceptionHandler(CategoryNotEmptyException.class)
     public ResponseEntity<ErrorResponse> handleCategoryNotEmpty(
             CategoryNotEmptyException ex, HttpServletRequest request) {
@@ -96,6 +166,26 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(error);
     }
 
+    @ExceptionHandler(OrderStockException.class)
+    public ResponseEntity<ErrorResponse> handleOrderStock(
+            OrderStockException ex, HttpServletRequest request) {
+
+        List<FieldError> errors = ex.getShortages()
+                .stream()
+                .map(s -> new FieldError(
+                        "productsAndQuantities[" + s.getProductId() + "]",
+                        String.format("Stock insuffisant pour %s. Demandé: %d, Disponible: %d",
+                                s.getProductName(), s.getRequested(), s.getAvailable()),
+                        s.getRequested()))
+                .toList();
+
+        ErrorResponse errorResponse = new ErrorResponse(400, BAD_REQUEST, ex.getMessage());
+        errorResponse.setPath(request.getRequestURI());
+        errorResponse.setErrors(errors);
+
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
     @ExceptionHandler(ConstraintViolationException.class)
     public ResponseEntity<ErrorResponse> handleConstraintViolation(
             ConstraintViolationException ex, HttpServletRequest request) {
@@ -0,0 +1,31 @@
+package com.formation.products.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Shared version counter of a part of the catalog (one row per name), bumped with plain SQL by
+ * {@link com.formation.products.service.CatalogVersion} in the writing transaction, so that
+ * every instance derives the same list ETags.
+ */
+@Entity
+@Table(name = "catalog_versions")
+public class CatalogVersionRow {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(nullable = false)
+    private long version;
+
+    protected CatalogVersionRow() {
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
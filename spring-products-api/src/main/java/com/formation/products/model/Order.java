@@ -12,12 +12,17 @@ import java.util.Objects;
 import java.util.UUID;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_order_date_id", columnList = "order_date, id"),
+    @Index(name = "idx_orders_status_order_date_id", columnList = "status, order_date, id"),
+    @Index(name = "idx_orders_customer_email_order_date_id", columnList = "customer_email, order_date, id")
+})
 @ValidDateRange
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "order_number", nullable = false, unique = true, length = 50)
@@ -69,6 +74,8 @@ public class Order {
         Objects.requireNonNull(item, "item must not be null");
         items.add(item);
         item.setOrder(this);
+        // The subtotal is otherwise only computed on persist, after the total.
+        item.updateSubtotal();
         calculateTotal();
     }
 
@@ -93,6 +100,10 @@ public class Order {
         return orderNumber;
     }
 
+    public void setOrderNumber(String orderNumber) {
+        this.orderNumber = orderNumber;
+    }
+
     public String getCustomerName() {
         return customerName;
     }
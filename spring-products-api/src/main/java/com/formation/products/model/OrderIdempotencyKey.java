@@ -0,0 +1,79 @@
+package com.formation.products.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Idempotency-Key of an order creation, stored in the same transaction as the order so that a
+ * key is bound to at most one order, including across restarts and instances.
+ * Managed by {@link com.formation.products.service.OrderIdempotencyService}.
+ * The key is assigned, so the entity reports itself as new until persisted or loaded: save then
+ * always INSERTs and a key already taken fails on the primary key instead of being merged.
+ */
+@Entity
+@Table(name = "order_idempotency_keys", indexes = {
+    @Index(name = "idx_order_idempotency_keys_created_at", columnList = "created_at")
+})
+public class OrderIdempotencyKey implements Persistable<String> {
+
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String key;
+
+    /** SHA-256 of the request, to reject a key reused for a different order. */
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Transient
+    private boolean isNew = true;
+
+    protected OrderIdempotencyKey() {
+    }
+
+    public OrderIdempotencyKey(String key, String requestHash, Long orderId) {
+        this.key = key;
+        this.requestHash = requestHash;
+        this.orderId = orderId;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public String getId() {
+        return key;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,57 @@
+package com.formation.products.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entry of the product change feed. Rows are only appended, with plain SQL, by
+ * {@link com.formation.products.service.ProductChangeFeed}; seq follows commit order.
+ */
+@Entity
+@Table(name = "product_changes", indexes = {
+    @Index(name = "idx_product_changes_changed_at", columnList = "changed_at")
+})
+public class ProductChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long seq;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false, length = 20)
+    private ProductChangeType type;
+
+    /** Category the product left, for CATEGORY_CHANGE entries. */
+    @Column(name = "previous_category_id")
+    private Long previousCategoryId;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    protected ProductChange() {
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public ProductChangeType getType() {
+        return type;
+    }
+
+    public Long getPreviousCategoryId() {
+        return previousCategoryId;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+}
@@ -0,0 +1,7 @@
+package com.formation.products.model;
+
+public enum ProductChangeType {
+    UPSERT,
+    CATEGORY_CHANGE,
+    DELETE
+}
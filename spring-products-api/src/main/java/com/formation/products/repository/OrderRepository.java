@@ -11,33 +11,68 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
+    /**
+     * Keyset pages of (id, orderDate), newest first. Listings select a page of ids with these,
+     * then load the details of that page only with {@link #findByIdInWithDetails}.
+     */
+    @Query("SELECT o.id, o.orderDate FROM Order o ORDER BY o.orderDate DESC, o.id DESC")
+    List<Object[]> findFirstKeysetIdPage(Pageable pageable);
+
     @Query("""
-            SELECT DISTINCT o FROM Order o
-            LEFT JOIN FETCH o.items i
-            LEFT JOIN FETCH i.product p
-            LEFT JOIN FETCH p.category
-            LEFT JOIN FETCH p.supplier
-            WHERE o.customerEmail = :customerEmail
-            ORDER BY o.id DESC
+            SELECT o.id, o.orderDate FROM Order o
+            WHERE o.orderDate <= :orderDate
+            AND (o.orderDate < :orderDate OR o.id < :id)
+            ORDER BY o.orderDate DESC, o.id DESC
             """)
-    List<Order> findByCustomerEmailWithDetails(@Param("customerEmail") String customerEmail);
+    List<Object[]> findKeysetIdPageAfter(@Param("orderDate") LocalDateTime orderDate,
+                                         @Param("id") Long id,
+                                         Pageable pageable);
 
     @Query("""
-            SELECT DISTINCT o FROM Order o
-            LEFT JOIN FETCH o.items i
-            LEFT JOIN FETCH i.product p
-            LEFT JOIN FETCH p.category
-            LEFT JOIN FETCH p.supplier
+            SELECT o.id, o.orderDate FROM Order o
             WHERE o.status = :status
-            ORDER BY o.id DESC
+            ORDER BY o.orderDate DESC, o.id DESC
+            """)
+    List<Object[]> findFirstKeysetIdPageByStatus(@Param("status") OrderStatus status, Pageable pageable);
+
+    @Query("""
+            SELECT o.id, o.orderDate FROM Order o
+            WHERE o.status = :status
+            AND o.orderDate <= :orderDate
+            AND (o.orderDate < :orderDate OR o.id < :id)
+            ORDER BY o.orderDate DESC, o.id DESC
+            """)
+    List<Object[]> findKeysetIdPageByStatusAfter(@Param("status") OrderStatus status,
+                                                 @Param("orderDate") LocalDateTime orderDate,
+                                                 @Param("id") Long id,
+                                                 Pageable pageable);
+
+    @Query("""
+            SELECT o.id, o.orderDate FROM Order o
+            WHERE o.customerEmail = :customerEmail
+            ORDER BY o.orderDate DESC, o.id DESC
+            """)
+    List<Object[]> findFirstKeysetIdPageByCustomerEmail(@Param("customerEmail") String customerEmail, Pageable pageable);
+
+    @Query("""
+            SELECT o.id, o.orderDate FROM Order o
+            WHERE o.customerEmail = :customerEmail
+            AND o.orderDate <= :orderDate
+            AND (o.orderDate < :orderDate OR o.id < :id)
+            ORDER BY o.orderDate DESC, o.id DESC
             """)
-    List<Order> findByStatusWithDetails(@Param("status") OrderStatus status);
+    List<Object[]> findKeysetIdPageByCustomerEmailAfter(@Param("customerEmail") String customerEmail,
+                                                        @Param("orderDate") LocalDateTime orderDate,
+                                                        @Param("id") Long id,
+                                                        Pageable pageable);
 
     @Query("""
             SELECT DISTINCT o FROM Order o
@@ -45,9 +80,9 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
             LEFT JOIN FETCH i.product p
             LEFT JOIN FETCH p.category
             LEFT JOIN FETCH p.supplier
-            ORDER BY o.id DESC
+            WHERE o.id IN :ids
             """)
-    List<Order> findAllWithDetails();
+    List<Order> findByIdInWithDetails(@Param("ids") Collection<Long> ids);
 
     @Query("""
             SELECT DISTINCT o FROM Order o
@@ -0,0 +1,28 @@
+package com.formation.products.repository;
+
+import com.formation.products.model.ProductChange;
+import com.formation.products.model.ProductChangeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProductChangeRepository extends JpaRepository<ProductChange, Long> {
+
+    @Query("SELECT c FROM ProductChange c WHERE c.seq > :since ORDER BY c.seq")
+    List<ProductChange> findAfter(@Param("since") long since, Pageable pageable);
+
+    @Query("SELECT MIN(c.seq) FROM ProductChange c")
+    Long findOldestSeq();
+
+    @Query("SELECT COALESCE(MAX(c.seq), 0) FROM ProductChange c")
+    long findLatestSeq();
+
+    @Query("SELECT c.productId FROM ProductChange c WHERE c.seq > :after AND c.seq <= :upTo AND c.type = :type")
+    List<Long> findProductIdsBetween(@Param("after") long after, @Param("upTo") long upTo,
+                                     @Param("type") ProductChangeType type);
+}
@@ -1,51 +1,126 @@
 package com.formation.products.repository;
 
 import com.formation.products.dto.CategoryStats;
-import com.formation.products.model.Category;
+import com.formation.products.dto.ProductSummary;
 import com.formation.products.model.Product;
 import com.formation.products.model.Supplier;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
+    /**
+     * Select list of the listing read model. Explicit LEFT JOINs keep products without category
+     * or supplier (a path expression such as p.category.name would be an inner join).
+     */
+    String SUMMARY_SELECT = """
+            SELECT NEW com.formation.products.dto.ProductSummary(
+                p.id, p.name, p.price, p.stock, p.sku, c.id, c.name, s.id, s.name, p.createdAt)
+            FROM Product p
+            LEFT JOIN p.category c
+            LEFT JOIN p.supplier s
+            """;
+
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.supplier WHERE p.id = :id")
     Optional<Product> findByIdWithCategoryAndSupplier(@Param("id") Long id);
 
-    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.supplier ORDER BY p.createdAt DESC")
-    List<Product> findAllWithCategoryAndSupplier();
-
-    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.supplier WHERE p.category.id = :categoryId ORDER BY p.createdAt DESC")
-    List<Product> findByCategoryIdWithCategoryAndSupplier(@Param("categoryId") Long categoryId);
+    @Query("SELECT p.version FROM Product p WHERE p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
 
-    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.supplier WHERE p.category = :category ORDER BY p.createdAt DESC")
-    List<Product> findByCategoryWithCategoryAndSupplier(@Param("category") Category category);
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.supplier WHERE p.id IN :ids")
+    List<Product> findByIdInWithCategoryAndSupplier(@Param("ids") Collection<Long> ids);
 
     @EntityGraph(value = "Product.full")
     Page<Product> findAll(Pageable pageable);
 
-    List<Product> findByCategory(Category category);
+    @Query(SUMMARY_SELECT + " ORDER BY p.createdAt DESC")
+    List<ProductSummary> findAllSummaries();
+
+    @Query(SUMMARY_SELECT + " WHERE c.id = :categoryId ORDER BY p.createdAt DESC")
+    List<ProductSummary> findSummariesByCategoryId(@Param("categoryId") Long categoryId);
+
+    @Query(SUMMARY_SELECT + " WHERE c.name = :categoryName ORDER BY p.createdAt DESC")
+    List<ProductSummary> findSummariesByCategoryName(@Param("categoryName") String categoryName);
+
+    @Query(SUMMARY_SELECT + " WHERE p.updatedAt >= :since")
+    List<ProductSummary> findSummariesUpdatedSince(@Param("since") LocalDateTime since);
+
+    @Query(SUMMARY_SELECT + " WHERE p.id IN :ids")
+    List<ProductSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(value = SUMMARY_SELECT, countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<ProductSummary> findSummaries(Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductSummary> findFirstKeysetPage(Pageable pageable);
+
+    @Query(SUMMARY_SELECT + """
+             WHERE p.createdAt <= :createdAt
+            AND (p.createdAt < :createdAt OR p.id < :id)
+            ORDER BY p.createdAt DESC, p.id DESC
+            """)
+    List<ProductSummary> findKeysetPageAfter(@Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.supplier ORDER BY p.id")
+    Stream<Product> streamAllWithCategoryAndSupplier();
 
     List<Product> findByCategoryId(Long categoryId);
 
     List<Product> findBySupplier(Supplier supplier);
 
-    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.supplier WHERE p.price BETWEEN :min AND :max ORDER BY p.price")
-    List<Product> findByPriceBetween(@Param("min") BigDecimal min, @Param("max") BigDecimal max);
+    @Query(value = "SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.supplier WHERE p.price BETWEEN :min AND :max ORDER BY p.price, p.id",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.price BETWEEN :min AND :max")
+    Page<Product> findByPriceBetween(@Param("min") BigDecimal min, @Param("max") BigDecimal max, Pageable pageable);
 
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.supplier WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     List<Product> searchByName(@Param("keyword") String keyword);
 
+    /**
+     * Ranked full-text + trigram search over name, description and SKU (PostgreSQL only).
+     * Expressions mirror the GIN indexes created by ProductSearchIndexInitializer.
+     */
+    @Query(value = """
+            SELECT p.id FROM products p
+            WHERE to_tsvector('simple', coalesce(p.name, '') || ' ' || coalesce(p.description, '') || ' ' || coalesce(p.sku, ''))
+                  @@ plainto_tsquery('simple', :query)
+               OR (coalesce(p.name, '') || ' ' || coalesce(p.sku, '')) ILIKE CONCAT('%', :pattern, '%')
+            ORDER BY ts_rank(
+                         to_tsvector('simple', coalesce(p.name, '') || ' ' || coalesce(p.description, '') || ' ' || coalesce(p.sku, '')),
+                         plainto_tsquery('simple', :query))
+                     + similarity(coalesce(p.name, '') || ' ' || coalesce(p.sku, ''), :query) DESC,
+                     p.id
+            """,
+            countQuery = """
+            SELECT COUNT(*) FROM products p
+            WHERE to_tsvector('simple', coalesce(p.name, '') || ' ' || coalesce(p.description, '') || ' ' || coalesce(p.sku, ''))
+                  @@ plainto_tsquery('simple', :query)
+               OR (coalesce(p.name, '') || ' ' || coalesce(p.sku, '')) ILIKE CONCAT('%', :pattern, '%')
+            """,
+            nativeQuery = true)
+    Page<Long> searchIds(@Param("query") String query, @Param("pattern") String pattern, Pageable pageable);
+
     @Query("SELECT p.category.name, COUNT(p) FROM Product p GROUP BY p.category")
     List<Object[]> countByCategory();
 
@@ -72,6 +147,21 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p")
     List<Product> findAllWithFullGraph();
 
+    @Query("SELECT p.sku FROM Product p WHERE p.sku IN :skus")
+    List<String> findExistingSkus(@Param("skus") Collection<String> skus);
+
+    /**
+     * Atomically adds delta to the stock when the result stays non-negative and returns the new
+     * stock. Empty when the product does not exist or the stock would become negative.
+     */
+    @Query(value = """
+            UPDATE products
+            SET stock = stock + :delta, version = version + 1, updated_at = :now
+            WHERE id = :id AND stock + :delta >= 0
+            RETURNING stock
+            """, nativeQuery = true)
+    Optional<Integer> adjustStock(@Param("id") Long id, @Param("delta") int delta, @Param("now") LocalDateTime now);
+
     @Query("SELECT COUNT(p) > 0 FROM Product p WHERE p.sku = :sku")
     boolean existsBySku(@Param("sku") String sku);
 
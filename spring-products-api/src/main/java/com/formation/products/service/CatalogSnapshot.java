@@ -0,0 +1,419 @@
+package com.formation.products.service;
+
+import com.formation.products.dto.KeysetCursor;
+import com.formation.products.dto.ProductFilter;
+import com.formation.products.dto.ProductSummary;
+import com.formation.products.model.Category;
+import com.formation.products.model.ProductChangeType;
+import com.formation.products.repository.CategoryRepository;
+import com.formation.products.repository.ProductChangeRepository;
+import com.formation.products.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Optional "snapshot mode" (app.catalog.snapshot.*): product listings and categories are served
+ * from an immutable in-heap snapshot that is atomically swapped, so list and filter reads never
+ * touch the database.
+ * A refresher reloads products updated since the previous refresh (through the updated_at
+ * index) and the small categories table, and only builds a new snapshot when something changed;
+ * a delta is merged into the sorted lists in one linear pass instead of re-sorting the catalog.
+ * Deletes, which the updated_at delta cannot see, are read from the product change feed on
+ * every refresh, whichever instance made them, and local ones are also pushed after commit; if
+ * the feed was purged past the snapshot's position, the refresh is a full reload. A full reload
+ * every few minutes also catches updates outside the delta window. Readers fall back to the
+ * database when the last successful refresh is older than the configured maximum staleness.
+ * ETags are the {@link CatalogVersion} tags read when the refresh started, so an instance
+ * serving from its snapshot and one serving from the database agree on them.
+ */
+@Component
+public class CatalogSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshot.class);
+
+    /** Re-read window covering transactions that committed after the previous refresh started. */
+    private static final Duration UPDATE_LAG = Duration.ofMinutes(1);
+    private static final Duration FULL_REFRESH_INTERVAL = Duration.ofMinutes(10);
+
+    private static final Comparator<ProductSummary> NEWEST_FIRST = Comparator
+            .comparing(ProductSummary::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(ProductSummary::getId, Comparator.reverseOrder());
+
+    private final boolean enabled;
+    private final Duration maxStaleness;
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductChangeRepository productChangeRepository;
+    private final CatalogVersion catalogVersion;
+    private final Set<Long> pendingRemovals = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+    private volatile Instant lastRefresh;
+
+    /** Guarded by refreshLock. */
+    private LocalDateTime lastDeltaStart;
+    private Instant lastFullRefresh;
+    /** Last change feed seq whose deletes are reflected in the snapshot. */
+    private long feedPosition;
+
+    public CatalogSnapshot(@Value("${app.catalog.snapshot.enabled:false}") boolean enabled,
+                           @Value("${app.catalog.snapshot.max-staleness:10s}") Duration maxStaleness,
+                           ProductRepository productRepository,
+                           CategoryRepository categoryRepository,
+                           ProductChangeRepository productChangeRepository,
+                           CatalogVersion catalogVersion) {
+        this.enabled = enabled;
+        this.maxStaleness = maxStaleness;
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.productChangeRepository = productChangeRepository;
+        this.catalogVersion = catalogVersion;
+    }
+
+    /**
+     * The current snapshot, or empty when snapshot mode is off or the snapshot is too stale.
+     */
+    public Optional<Snapshot> current() {
+        Snapshot current = snapshot;
+        Instant refreshedAt = lastRefresh;
+        if (current == null || refreshedAt == null
+                || refreshedAt.plus(maxStaleness).isBefore(Instant.now())) {
+            return Optional.empty();
+        }
+        return Optional.of(current);
+    }
+
+    /**
+     * Drops a deleted product from the next snapshot once the current transaction commits.
+     */
+    public void removeAfterCommit(Long productId) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingRemovals.add(productId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pendingRemovals.add(productId);
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.snapshot.refresh-interval:2000}")
+    public void refresh() {
+        if (!enabled || !refreshLock.tryLock()) {
+            return;
+        }
+        try {
+            Instant startedAt = Instant.now();
+            LocalDateTime deltaStart = LocalDateTime.now();
+            // Read before the data: the snapshot can then only be fresher than its tags.
+            String productsTag = catalogVersion.productsTag();
+            String categoriesTag = catalogVersion.categoriesTag();
+            Snapshot current = snapshot;
+            boolean full = current == null || lastFullRefresh.plus(FULL_REFRESH_INTERVAL).isBefore(startedAt);
+            Snapshot next = (full ? rebuild(current) : applyDelta(current)).withTags(productsTag, categoriesTag);
+            if (next != current) {
+                snapshot = next;
+            }
+            if (full) {
+                lastFullRefresh = startedAt;
+                if (current == null) {
+                    log.info("Catalog snapshot loaded with {} product(s)", next.productsById.size());
+                }
+            }
+            lastDeltaStart = deltaStart;
+            lastRefresh = startedAt;
+        } catch (DataAccessException ex) {
+            log.warn("Catalog snapshot refresh failed, reads fall back to the database once stale", ex);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private Snapshot rebuild(Snapshot current) {
+        pendingRemovals.clear();
+        // Read before the products: a delete committed during the load is replayed by the next delta.
+        feedPosition = productChangeRepository.findLatestSeq();
+        List<Category> categories = loadCategories();
+        Map<Long, ProductSummary> products = productRepository.findAllSummaries().stream()
+                .collect(Collectors.toMap(ProductSummary::getId, Function.identity()));
+        if (current != null && products.equals(current.productsById) && sameCategories(categories, current.categories)) {
+            return current;
+        }
+        return new Snapshot(products, categories, null, null);
+    }
+
+    private Snapshot applyDelta(Snapshot current) {
+        List<Category> categories = loadCategories();
+        if (!sameCategories(categories, current.categories)) {
+            // Renames are embedded in every summary of the category: reload everything (rare).
+            return rebuild(current);
+        }
+        Long oldestSeq = productChangeRepository.findOldestSeq();
+        if (oldestSeq != null && feedPosition < oldestSeq - 1) {
+            // Deletes since our position were purged from the feed.
+            return rebuild(current);
+        }
+        Set<Long> removals = new HashSet<>(pendingRemovals);
+        pendingRemovals.removeAll(removals);
+        long latestSeq = productChangeRepository.findLatestSeq();
+        removals.addAll(productChangeRepository.findProductIdsBetween(feedPosition, latestSeq, ProductChangeType.DELETE));
+        feedPosition = latestSeq;
+        List<ProductSummary> updates = productRepository.findSummariesUpdatedSince(lastDeltaStart.minus(UPDATE_LAG))
+                .stream()
+                .filter(p -> !p.equals(current.productsById.get(p.getId())))
+                .toList();
+        removals.retainAll(current.productsById.keySet());
+        if (updates.isEmpty() && removals.isEmpty()) {
+            return current;
+        }
+        return current.withChanges(removals, updates);
+    }
+
+    private List<Category> loadCategories() {
+        return categoryRepository.findAll().stream()
+                .map(c -> {
+                    Category copy = new Category(c.getName(), c.getDescription());
+                    copy.setId(c.getId());
+                    return copy;
+                })
+                .sorted(Comparator.comparing(Category::getId))
+                .toList();
+    }
+
+    private static boolean sameCategories(List<Category> a, List<Category> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            Category x = a.get(i);
+            Category y = b.get(i);
+            if (!Objects.equals(x.getId(), y.getId())
+                    || !Objects.equals(x.getName(), y.getName())
+                    || !Objects.equals(x.getDescription(), y.getDescription())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Immutable view of the catalog. Categories are detached copies and must not be modified.
+     */
+    public static final class Snapshot {
+
+        private final Map<Long, ProductSummary> productsById;
+        private final List<ProductSummary> products;
+        private final Map<Long, List<ProductSummary>> productsByCategory;
+        private final List<Category> categories;
+        private final Map<Long, Category> categoriesById;
+        private final Map<String, Long> categoryIdsByName;
+        private final String productsTag;
+        private final String categoriesTag;
+
+        private Snapshot(Map<Long, ProductSummary> productsById, List<Category> categories,
+                         String productsTag, String categoriesTag) {
+            this.productsById = Collections.unmodifiableMap(productsById);
+            List<ProductSummary> sorted = new ArrayList<>(productsById.values());
+            sorted.sort(NEWEST_FIRST);
+            this.products = Collections.unmodifiableList(sorted);
+            Map<Long, List<ProductSummary>> byCategory = new HashMap<>();
+            for (ProductSummary product : sorted) {
+                if (product.getCategoryId() != null) {
+                    byCategory.computeIfAbsent(product.getCategoryId(), id -> new ArrayList<>()).add(product);
+                }
+            }
+            byCategory.replaceAll((id, list) -> Collections.unmodifiableList(list));
+            this.productsByCategory = byCategory;
+            this.categories = categories;
+            this.categoriesById = categories.stream().collect(Collectors.toMap(Category::getId, Function.identity()));
+            this.categoryIdsByName = categories.stream().collect(Collectors.toMap(Category::getName, Category::getId));
+            this.productsTag = productsTag;
+            this.categoriesTag = categoriesTag;
+        }
+
+        private Snapshot(Snapshot content, Map<Long, ProductSummary> productsById, List<ProductSummary> products,
+                         Map<Long, List<ProductSummary>> productsByCategory, String productsTag, String categoriesTag) {
+            this.productsById = productsById;
+            this.products = products;
+            this.productsByCategory = productsByCategory;
+            this.categories = content.categories;
+            this.categoriesById = content.categoriesById;
+            this.categoryIdsByName = content.categoryIdsByName;
+            this.productsTag = productsTag;
+            this.categoriesTag = categoriesTag;
+        }
+
+        /**
+         * This snapshot without the removed products and with the updated ones, same categories.
+         * Changed products are dropped from the sorted lists and the sorted updates merged back in,
+         * and only the lists of the categories they left or joined are rebuilt.
+         */
+        private Snapshot withChanges(Set<Long> removals, List<ProductSummary> updates) {
+            Map<Long, ProductSummary> byId = new HashMap<>(productsById);
+            Set<Long> changedIds = new HashSet<>(removals);
+            Set<Long> changedCategories = new HashSet<>();
+            for (Long id : removals) {
+                addCategory(changedCategories, byId.remove(id));
+            }
+            List<ProductSummary> additions = new ArrayList<>(updates);
+            additions.sort(NEWEST_FIRST);
+            for (ProductSummary product : additions) {
+                changedIds.add(product.getId());
+                addCategory(changedCategories, byId.put(product.getId(), product));
+                addCategory(changedCategories, product);
+            }
+            Map<Long, List<ProductSummary>> byCategory = new HashMap<>(productsByCategory);
+            for (Long categoryId : changedCategories) {
+                List<ProductSummary> merged = merge(productsByCategory.getOrDefault(categoryId, List.of()), changedIds,
+                        additions.stream().filter(p -> categoryId.equals(p.getCategoryId())).toList());
+                if (merged.isEmpty()) {
+                    byCategory.remove(categoryId);
+                } else {
+                    byCategory.put(categoryId, Collections.unmodifiableList(merged));
+                }
+            }
+            return new Snapshot(this, Collections.unmodifiableMap(byId),
+                    Collections.unmodifiableList(merge(products, changedIds, additions)), byCategory, null, null);
+        }
+
+        private static void addCategory(Set<Long> categoryIds, ProductSummary product) {
+            if (product != null && product.getCategoryId() != null) {
+                categoryIds.add(product.getCategoryId());
+            }
+        }
+
+        /** Merges sorted additions into a sorted list, skipping the entries whose id is in dropped. */
+        private static List<ProductSummary> merge(List<ProductSummary> sorted, Set<Long> dropped,
+                                                  List<ProductSummary> additions) {
+            List<ProductSummary> merged = new ArrayList<>(sorted.size() + additions.size());
+            int next = 0;
+            for (ProductSummary product : sorted) {
+                if (dropped.contains(product.getId())) {
+                    continue;
+                }
+                while (next < additions.size() && NEWEST_FIRST.compare(additions.get(next), product) < 0) {
+                    merged.add(additions.get(next++));
+                }
+                merged.add(product);
+            }
+            while (next < additions.size()) {
+                merged.add(additions.get(next++));
+            }
+            return merged;
+        }
+
+        /** The same content under the given tags; this snapshot when they are unchanged. */
+        private Snapshot withTags(String productsTag, String categoriesTag) {
+            if (productsTag.equals(this.productsTag) && categoriesTag.equals(this.categoriesTag)) {
+                return this;
+            }
+            return new Snapshot(this, productsById, products, productsByCategory, productsTag, categoriesTag);
+        }
+
+        /** ETag value of product listings served from this snapshot. */
+        public String getProductsTag() {
+            return productsTag;
+        }
+
+        public String getCategoriesTag() {
+            return categoriesTag;
+        }
+
+        /** All products, newest first. */
+        public List<ProductSummary> getProducts() {
+            return products;
+        }
+
+        public List<ProductSummary> getProductsByCategoryId(Long categoryId) {
+            return productsByCategory.getOrDefault(categoryId, List.of());
+        }
+
+        public List<ProductSummary> getProductsByCategoryName(String categoryName) {
+            Long categoryId = categoryIdsByName.get(categoryName);
+            return categoryId != null ? getProductsByCategoryId(categoryId) : List.of();
+        }
+
+        public Page<ProductSummary> getProducts(Pageable pageable) {
+            int from = (int) Math.min(pageable.getOffset(), products.size());
+            int to = Math.min(from + pageable.getPageSize(), products.size());
+            return new PageImpl<>(products.subList(from, to), pageable, products.size());
+        }
+
+        /** One pass over the products: the requested slice of the matches and their count. */
+        public Page<ProductSummary> getProducts(ProductFilter filter, Pageable pageable) {
+            List<ProductSummary> content = new ArrayList<>(pageable.getPageSize());
+            long total = 0;
+            for (ProductSummary product : products) {
+                if (filter.matches(product)) {
+                    if (total >= pageable.getOffset() && content.size() < pageable.getPageSize()) {
+                        content.add(product);
+                    }
+                    total++;
+                }
+            }
+            return new PageImpl<>(content, pageable, total);
+        }
+
+        /**
+         * Up to count products strictly after the cursor in (createdAt, id) descending order.
+         */
+        public List<ProductSummary> getProductsAfter(KeysetCursor cursor, int count) {
+            int from = 0;
+            if (cursor != null) {
+                ProductSummary probe = new ProductSummary(cursor.getId(), null, null, 0, null,
+                        null, null, null, null, cursor.getTimestamp());
+                int position = Collections.binarySearch(products, probe, NEWEST_FIRST);
+                from = position >= 0 ? position + 1 : -position - 1;
+            }
+            return products.subList(from, Math.min(from + count, products.size()));
+        }
+
+        public List<Category> getCategories() {
+            return categories;
+        }
+
+        public Optional<Category> getCategory(Long id) {
+            return Optional.ofNullable(categoriesById.get(id));
+        }
+    }
+}
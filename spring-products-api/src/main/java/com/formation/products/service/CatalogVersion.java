@@ -0,0 +1,114 @@
+package com.formation.products.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalog-level versions used as ETags by list endpoints, derived from the database so that
+ * every instance behind the load balancer serves the same tag for the same data.
+ * Products: the last seq of the product change feed, which every product write appends to in
+ * its transaction. Categories: a counter row in catalog_versions, bumped in the writing
+ * transaction; product listings embed their category, so their tag includes it too.
+ * Both are kept in memory so that tags cost no database round trip: local writes advance them
+ * once they commit, and a short poll picks up the writes of other instances. The values only
+ * ever lag the database, and a reader takes the tag before loading data: it can then at worst
+ * serve fresh data under an older tag, never stale data under a new one.
+ */
+@Component
+public class CatalogVersion {
+
+    private static final String CATEGORIES = "categories";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLong productsSeq = new AtomicLong();
+    private final AtomicLong categoriesVersion = new AtomicLong();
+
+    public CatalogVersion(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Creates the categories row when the migration did not (schema generated by Hibernate).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureCounters() {
+        try {
+            jdbcTemplate.update("INSERT INTO catalog_versions (name, version) SELECT ?, 0 "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM catalog_versions WHERE name = ?)", CATEGORIES, CATEGORIES);
+        } catch (DuplicateKeyException ex) {
+            // Created concurrently by another instance.
+        }
+        refresh();
+    }
+
+    /**
+     * Picks up the writes of other instances.
+     */
+    @Scheduled(fixedDelayString = "${app.catalog.version.refresh-interval:1000}")
+    public void refresh() {
+        jdbcTemplate.query("""
+                        SELECT (SELECT COALESCE(MAX(seq), 0) FROM product_changes),
+                               (SELECT COALESCE(MAX(version), 0) FROM catalog_versions WHERE name = ?)
+                        """,
+                rs -> {
+                    advance(productsSeq, rs.getLong(1));
+                    advance(categoriesVersion, rs.getLong(2));
+                }, CATEGORIES);
+    }
+
+    public String productsTag() {
+        return "products-" + productsSeq.get() + "-" + categoriesVersion.get();
+    }
+
+    public String categoriesTag() {
+        return "categories-" + categoriesVersion();
+    }
+
+    /**
+     * Embedded in product ETags: a category rename changes the representation of its products.
+     */
+    public long categoriesVersion() {
+        return categoriesVersion.get();
+    }
+
+    /**
+     * Called by the change feed with the last seq appended by a transaction, once it committed.
+     */
+    void productsCommitted(long seq) {
+        advance(productsSeq, seq);
+    }
+
+    /**
+     * Bumps the categories version in the current transaction; visible to readers once it commits.
+     */
+    public void categoriesChanged() {
+        if (jdbcTemplate.update("UPDATE catalog_versions SET version = version + 1 WHERE name = ?", CATEGORIES) == 0) {
+            return;
+        }
+        // The row stays locked until commit, so this is the value our commit publishes.
+        long version = jdbcTemplate.queryForObject(
+                "SELECT version FROM catalog_versions WHERE name = ?", Long.class, CATEGORIES);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            advance(categoriesVersion, version);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                advance(categoriesVersion, version);
+            }
+        });
+    }
+
+    private static void advance(AtomicLong counter, long value) {
+        counter.accumulateAndGet(value, Math::max);
+    }
+}
@@ -14,19 +14,39 @@ import java.util.Optional;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final ProductCache productCache;
+    private final CatalogVersion catalogVersion;
+    private final CatalogSnapshot catalogSnapshot;
 
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository,
+                           ProductCache productCache,
+                           CatalogVersion catalogVersion,
+                           CatalogSnapshot catalogSnapshot) {
         this.categoryRepository = categoryRepository;
+        this.productCache = productCache;
+        this.catalogVersion = catalogVersion;
+        this.catalogSnapshot = catalogSnapshot;
+    }
+
+    /**
+     * ETag value of category reads, consistent with where they are served from.
+     */
+    public String getCategoriesTag() {
+        return catalogSnapshot.current()
+                .map(CatalogSnapshot.Snapshot::getCategoriesTag)
+                .orElseGet(catalogVersion::categoriesTag);
     }
 
-    @Transactional(readOnly = true)
     public List<Category> getAllCategories() {
-        return categoryRepository.findAll();
+        return catalogSnapshot.current()
+                .map(CatalogSnapshot.Snapshot::getCategories)
+                .orElseGet(categoryRepository::findAll);
     }
 
-    @Transactional(readOnly = true)
     public Optional<Category> getCategory(Long id) {
-        return categoryRepository.findById(id);
+        return catalogSnapshot.current()
+                .map(snapshot -> snapshot.getCategory(id))
+                .orElseGet(() -> categoryRepository.findById(id));
     }
 
     @Transactional(readOnly = true)
@@ -40,6 +60,7 @@ public class CategoryService {
             throw new IllegalArgumentException("Le nom de la catégorie est obligatoire");
         }
         Category category = new Category(name.trim(), description);
+        catalogVersion.categoriesChanged();
         return categoryRepository.save(category);
     }
 
@@ -53,6 +74,9 @@ public class CategoryService {
         if (description != null) {
             existing.setDescription(description);
         }
+        // Cached products embed their category, so a rename must drop them.
+        productCache.evictByCategory(id);
+        catalogVersion.categoriesChanged();
         return categoryRepository.save(existing);
     }
 
@@ -71,5 +95,6 @@ public class CategoryService {
         }
 
         categoryRepository.delete(category);
+        catalogVersion.categoriesChanged();
     }
 }
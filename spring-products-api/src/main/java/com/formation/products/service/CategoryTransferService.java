@@ -0,0 +1,154 @@
+package com.formation.products.service;
+
+import com.formation.products.dto.CategoryTransferJob;
+import com.formation.products.exception.CategoryNotFoundException;
+import com.formation.products.exception.CategoryTransferNotFoundException;
+import com.formation.products.repository.CategoryRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Moves every product of a category to another one as a background job.
+ * Products are moved with set-based UPDATE statements of CHUNK_SIZE rows, each committed in its
+ * own transaction, so neither the request nor a single transaction grows with the category
+ * size; a failed job can simply be resubmitted to move what is left. Each chunk also bumps the
+ * categories version in its transaction, since category ETags cover their products.
+ * Jobs run one at a time and are kept in memory for an hour after they finish.
+ */
+@Service
+public class CategoryTransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryTransferService.class);
+
+    private static final int CHUNK_SIZE = 10_000;
+    private static final Duration FINISHED_JOB_RETENTION = Duration.ofHours(1);
+
+    private static final String LOCK_CHUNK_SQL =
+            "SELECT id FROM products WHERE category_id = ? ORDER BY id LIMIT ? FOR UPDATE";
+
+    private final CategoryRepository categoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductCache productCache;
+    private final ProductChangeFeed productChangeFeed;
+    private final CatalogVersion catalogVersion;
+    private final Map<String, CategoryTransferJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "category-transfer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CategoryTransferService(CategoryRepository categoryRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   ProductCache productCache,
+                                   ProductChangeFeed productChangeFeed,
+                                   CatalogVersion catalogVersion) {
+        this.categoryRepository = categoryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.productCache = productCache;
+        this.productChangeFeed = productChangeFeed;
+        this.catalogVersion = catalogVersion;
+    }
+
+    /**
+     * Validates both categories and queues the transfer; returns immediately with the job.
+     */
+    public CategoryTransferJob submit(Long fromCategoryId, Long toCategoryId) {
+        if (fromCategoryId.equals(toCategoryId)) {
+            throw new IllegalArgumentException("Source and target categories must be different");
+        }
+        if (!categoryRepository.existsById(fromCategoryId)) {
+            throw new CategoryNotFoundException(fromCategoryId);
+        }
+        if (!categoryRepository.existsById(toCategoryId)) {
+            throw new CategoryNotFoundException(toCategoryId);
+        }
+        purgeFinishedJobs();
+        CategoryTransferJob job = new CategoryTransferJob(fromCategoryId, toCategoryId);
+        jobs.put(job.getId(), job);
+        executor.execute(() -> run(job));
+        return job;
+    }
+
+    public CategoryTransferJob getJob(String id) {
+        CategoryTransferJob job = jobs.get(id);
+        if (job == null) {
+            throw new CategoryTransferNotFoundException(id);
+        }
+        return job;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(CategoryTransferJob job) {
+        Long from = job.getFromCategoryId();
+        Long to = job.getToCategoryId();
+        try {
+            Long total = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM products WHERE category_id = ?", Long.class, from);
+            job.start(total != null ? total : 0);
+            int moved;
+            do {
+                moved = moveChunk(from, to);
+                job.addMoved(moved);
+                // Cached products embed their category; the chunk is committed at this point.
+                productCache.evictByCategory(from);
+            } while (moved > 0);
+            job.complete();
+            log.info("Category transfer {} moved {} product(s) from {} to {}", job.getId(), job.getMoved(), from, to);
+        } catch (RuntimeException ex) {
+            log.error("Category transfer {} failed after {} product(s)", job.getId(), job.getMoved(), ex);
+            job.fail("Le transfert a échoué, il peut être relancé pour déplacer les produits restants");
+        }
+    }
+
+    /**
+     * Moves the CHUNK_SIZE lowest ids still in the source category. The ids are locked and read
+     * first so the change feed can record which products left the category.
+     */
+    private int moveChunk(Long from, Long to) {
+        Integer moved = transactionTemplate.execute(status -> {
+            List<Long> ids = jdbcTemplate.queryForList(LOCK_CHUNK_SQL, Long.class, from, CHUNK_SIZE);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(","));
+            List<Object> args = new ArrayList<>(ids.size() + 2);
+            args.add(to);
+            args.add(Timestamp.valueOf(LocalDateTime.now()));
+            args.addAll(ids);
+            jdbcTemplate.update("UPDATE products SET category_id = ?, version = version + 1, updated_at = ? "
+                    + "WHERE id IN (" + placeholders + ")", args.toArray());
+            productChangeFeed.recordCategoryChanges(ids, from);
+            catalogVersion.categoriesChanged();
+            return ids.size();
+        });
+        return moved != null ? moved : 0;
+    }
+
+    private void purgeFinishedJobs() {
+        LocalDateTime threshold = LocalDateTime.now().minus(FINISHED_JOB_RETENTION);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(threshold));
+    }
+}
@@ -0,0 +1,342 @@
+package com.formation.products.service;
+
+import com.formation.products.exception.InsufficientStockException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Opt-in "hot inventory" mode for a configured set of products (app.inventory.hot.*).
+ * Stock of those products lives in per-product atomic counters: reservations are a CAS loop
+ * on the counter and never touch the database. Net deltas are flushed to products.stock in one
+ * JDBC batch every flush interval, and on shutdown. Counters are loaded from the database on
+ * startup.
+ * Hot mode is single-node only: each instance would load the full stock into its own counters
+ * and could sell it again. The instance enabling it holds a session advisory lock for its whole
+ * lifetime, and another instance configured with hot products fails to start.
+ * Reads of products.stock for hot products lag by at most one flush interval. Reservations
+ * not yet flushed are lost if the process crashes. The column is only written by flushes: an
+ * absolute stock set by PUT is applied to the counter after commit instead.
+ * A flush never drives products.stock negative: when the column has moved behind the counter
+ * (a direct write), the row is left untouched, the delta stays pending and the product is
+ * reported as rejected by {@link #checkDrift} until it is reconciled.
+ */
+@Component
+public class HotInventory {
+
+    private static final Logger log = LoggerFactory.getLogger(HotInventory.class);
+
+    private static final String FLUSH_SQL =
+            "UPDATE products SET stock = stock + ?, version = version + 1, updated_at = ? WHERE id = ? AND stock + ? >= 0";
+
+    /** Arbitrary key of the session advisory lock held by the instance running hot mode. */
+    private static final long SINGLE_NODE_LOCK_KEY = 0x686f74696e76L;
+
+    private final boolean enabled;
+    private final Set<Long> configuredIds;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductCache productCache;
+    private final ProductChangeFeed productChangeFeed;
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /** Connection whose session holds the single-node lock, kept out of the pool until shutdown. */
+    private Connection lockConnection;
+
+    public HotInventory(@Value("${app.inventory.hot.enabled:false}") boolean enabled,
+                        @Value("${app.inventory.hot.product-ids:}") Set<Long> configuredIds,
+                        JdbcTemplate jdbcTemplate,
+                        DataSource dataSource,
+                        PlatformTransactionManager transactionManager,
+                        ProductCache productCache,
+                        ProductChangeFeed productChangeFeed) {
+        this.enabled = enabled;
+        this.configuredIds = configuredIds;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        // Flushes may run from afterCommit callbacks, where REQUIRED would join the finished transaction.
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.productCache = productCache;
+        this.productChangeFeed = productChangeFeed;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCounters() {
+        if (!enabled || configuredIds.isEmpty()) {
+            return;
+        }
+        acquireSingleNodeLock();
+        String placeholders = configuredIds.stream().map(id -> "?").collect(Collectors.joining(","));
+        jdbcTemplate.query("SELECT id, name, stock FROM products WHERE id IN (" + placeholders + ")",
+                rs -> {
+                    counters.put(rs.getLong("id"), new Counter(rs.getString("name"), rs.getInt("stock")));
+                },
+                configuredIds.toArray());
+        log.info("Hot inventory enabled for {} product(s)", counters.size());
+    }
+
+    public boolean isHot(Long productId) {
+        return counters.containsKey(productId);
+    }
+
+    /**
+     * Current in-memory stock of a hot product, null when the product is not hot.
+     */
+    public Integer available(Long productId) {
+        Counter counter = counters.get(productId);
+        return counter != null ? counter.available.get() : null;
+    }
+
+    /**
+     * Applies a signed stock delta in memory and returns the new available stock.
+     * Fails without side effect when the stock would become negative.
+     */
+    public int adjust(Long productId, int delta) {
+        Counter counter = counters.get(productId);
+        if (counter == null) {
+            throw new IllegalStateException("Product " + productId + " is not in hot inventory");
+        }
+        while (true) {
+            int current = counter.available.get();
+            int next = current + delta;
+            if (next < 0) {
+                throw new InsufficientStockException(counter.name, Math.abs(delta), current);
+            }
+            if (counter.available.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Writes the net delta of every counter since the last flush in a single JDBC batch.
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.hot.flush-interval:1000}")
+    public void flush() {
+        if (counters.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            List<Long> ids = new ArrayList<>();
+            List<Integer> snapshots = new ArrayList<>();
+            List<Object[]> args = new ArrayList<>();
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            counters.forEach((id, counter) -> {
+                int snapshot = counter.available.get();
+                int delta = snapshot - counter.flushedBase;
+                if (delta != 0) {
+                    ids.add(id);
+                    snapshots.add(snapshot);
+                    args.add(new Object[] {delta, now, id, delta});
+                }
+            });
+            if (args.isEmpty()) {
+                return;
+            }
+            int[] counts = transactionTemplate.execute(status -> {
+                int[] updated = jdbcTemplate.batchUpdate(FLUSH_SQL, args);
+                productChangeFeed.recordUpserts(ids);
+                ids.forEach(productCache::evict);
+                return updated;
+            });
+            for (int i = 0; i < ids.size(); i++) {
+                Counter counter = counters.get(ids.get(i));
+                if (counts[i] != 0) {
+                    counter.flushedBase = snapshots.get(i);
+                    counter.flushRejected = false;
+                    continue;
+                }
+                counter.rejectedSnapshot = snapshots.get(i);
+                if (!counter.flushRejected) {
+                    counter.flushRejected = true;
+                    log.warn("Hot inventory flush of delta {} for product {} rejected: stock would become negative",
+                            args.get(i)[0], ids.get(i));
+                }
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Hot inventory flush failed, deltas will be retried on next flush", ex);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Applies an absolute stock (PUT) to a hot product once the current transaction commits.
+     * The writer leaves products.stock to the flushes, so no flush can add a pending delta on top
+     * of the new value. Reservations counted until now are superseded by it; those made before
+     * the commit lands are kept on top of it.
+     */
+    public void setStockAfterCommit(Long productId, int stock) {
+        Counter counter = counters.get(productId);
+        if (counter == null) {
+            throw new IllegalStateException("Product " + productId + " is not in hot inventory");
+        }
+        int observed = counter.available.get();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            counter.available.addAndGet(stock - observed);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                counter.available.addAndGet(stock - observed);
+            }
+        });
+    }
+
+    /**
+     * Compares each counter's last flushed value with the database: a non-zero drift means the
+     * column was changed behind hot inventory's back. flushRejected marks counters whose pending
+     * delta the database refused. With reconcile, drifts are absorbed; a rejected counter is rebased
+     * on the database stock, discarding the refused delta but keeping reservations made since.
+     */
+    public List<Map<String, Object>> checkDrift(boolean reconcile) {
+        flush();
+        flushLock.lock();
+        try {
+            Map<Long, Integer> stocks = readStocks(counters.keySet());
+            List<Map<String, Object>> report = new ArrayList<>();
+            counters.forEach((id, counter) -> {
+                Integer dbStock = stocks.get(id);
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("productId", id);
+                row.put("available", counter.available.get());
+                row.put("pendingDelta", counter.available.get() - counter.flushedBase);
+                row.put("databaseStock", dbStock);
+                int drift = dbStock != null ? dbStock - counter.flushedBase : 0;
+                row.put("drift", drift);
+                row.put("flushRejected", counter.flushRejected);
+                if (reconcile && counter.flushRejected && dbStock != null) {
+                    rebase(counter, dbStock, counter.rejectedSnapshot);
+                } else if (reconcile && drift != 0) {
+                    counter.available.addAndGet(drift);
+                    counter.flushedBase = dbStock;
+                }
+                report.add(row);
+            });
+            return report;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        if (lockConnection != null) {
+            try {
+                // Ending the session releases the single-node lock.
+                lockConnection.close();
+            } catch (SQLException ex) {
+                log.warn("Could not release the hot inventory lock", ex);
+            }
+        }
+    }
+
+    private void acquireSingleNodeLock() {
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            boolean acquired;
+            try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+                statement.setLong(1, SINGLE_NODE_LOCK_KEY);
+                try (ResultSet rs = statement.executeQuery()) {
+                    acquired = rs.next() && rs.getBoolean(1);
+                }
+            }
+            if (!acquired) {
+                throw new IllegalStateException(
+                        "Hot inventory is already enabled on another instance; it is single-node only");
+            }
+            lockConnection = connection;
+            connection = null;
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Could not acquire the hot inventory lock", ex);
+        } finally {
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (SQLException ex) {
+                    log.warn("Could not close the hot inventory lock connection", ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the counter to dbStock as of when it read observed. Reservations are lock-free, so the
+     * counter is shifted rather than set: those made since observed stay on top of dbStock and
+     * remain pending. Guarded by flushLock.
+     */
+    private static void rebase(Counter counter, int dbStock, int observed) {
+        counter.available.addAndGet(dbStock - observed);
+        counter.flushedBase = dbStock;
+        counter.flushRejected = false;
+    }
+
+    private Map<Long, Integer> readStocks(Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(","));
+        Map<Long, Integer> stocks = new HashMap<>();
+        jdbcTemplate.query("SELECT id, stock FROM products WHERE id IN (" + placeholders + ")",
+                rs -> {
+                    stocks.put(rs.getLong("id"), rs.getInt("stock"));
+                },
+                ids.toArray());
+        return stocks;
+    }
+
+    private static final class Counter {
+        private final String name;
+        private final AtomicInteger available;
+        /** Database stock as of the last flush; guarded by flushLock. */
+        private int flushedBase;
+        /** Whether the database refused the last flush of this counter; guarded by flushLock. */
+        private boolean flushRejected;
+        /** Counter value the refused flush was computed from; guarded by flushLock. */
+        private int rejectedSnapshot;
+
+        private Counter(String name, int stock) {
+            this.name = name;
+            this.available = new AtomicInteger(stock);
+            this.flushedBase = stock;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.formation.products.service;
+
+import com.formation.products.exception.IdempotencyKeyConflictException;
+import com.formation.products.model.Order;
+import com.formation.products.model.OrderIdempotencyKey;
+import com.formation.products.repository.OrderIdempotencyKeyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key support for order creation. The first request with a key creates the order
+ * and binds the key to it, in the same transaction; replays of the key get that order back
+ * instead of creating another one.
+ * Keys are tracked in a bounded in-memory cache (TTL app.idempotency.ttl) that also holds the
+ * in-flight requests: a concurrent duplicate waits for the original to finish rather than
+ * running it twice. The order_idempotency_keys table keeps the keys across restarts and
+ * instances; its primary key settles races between instances. Rows older than the TTL are purged.
+ */
+@Service
+public class OrderIdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderIdempotencyService.class);
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long IN_FLIGHT_WAIT_SECONDS = 30;
+
+    private final Duration ttl;
+    private final OrderService orderService;
+    private final OrderIdempotencyKeyRepository keyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<String, Attempt> attempts;
+
+    public OrderIdempotencyService(@Value("${app.idempotency.ttl:24h}") Duration ttl,
+                                   @Value("${app.idempotency.max-size:100000}") long maxSize,
+                                   OrderService orderService,
+                                   OrderIdempotencyKeyRepository keyRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   JdbcTemplate jdbcTemplate) {
+        this.ttl = ttl;
+        this.orderService = orderService;
+        this.keyRepository = keyRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.attempts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Creates the order once per key. A replay with the same request returns the order created
+     * first (replayed = true); a replay with a different request is rejected with a conflict.
+     */
+    public Outcome createOrder(String key,
+                               String customerName,
+                               String customerEmail,
+                               Map<Long, Integer> productsAndQuantities,
+                               LocalDateTime orderDate,
+                               LocalDateTime deliveryDate) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters long");
+        }
+        String requestHash = requestHash(customerName, customerEmail, productsAndQuantities, orderDate, deliveryDate);
+        while (true) {
+            Attempt attempt = new Attempt(requestHash);
+            Attempt current = attempts.asMap().putIfAbsent(key, attempt);
+            if (current != null) {
+                checkSameRequest(key, current.requestHash, requestHash);
+                Long orderId = await(key, current);
+                if (orderId != null) {
+                    return new Outcome(orderService.getOrderById(orderId), true);
+                }
+                // The original attempt failed without creating anything: run it again.
+                continue;
+            }
+            try {
+                Outcome outcome = execute(key, requestHash,
+                        () -> orderService.createOrder(customerName, customerEmail, productsAndQuantities, orderDate, deliveryDate));
+                attempt.orderId.complete(outcome.getOrder().getId());
+                return outcome;
+            } catch (RuntimeException ex) {
+                attempts.asMap().remove(key, attempt);
+                attempt.orderId.complete(null);
+                throw ex;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval:3600000}")
+    public void purge() {
+        Timestamp threshold = Timestamp.valueOf(LocalDateTime.now().minus(ttl));
+        int purged = jdbcTemplate.update("DELETE FROM order_idempotency_keys WHERE created_at < ?", threshold);
+        if (purged > 0) {
+            log.info("Purged {} idempotency key(s) older than {}", purged, ttl);
+        }
+    }
+
+    private Outcome execute(String key, String requestHash, Supplier<Order> creation) {
+        OrderIdempotencyKey stored = keyRepository.findById(key).orElse(null);
+        if (stored != null) {
+            return replay(key, stored, requestHash);
+        }
+        try {
+            Order order = transactionTemplate.execute(status -> {
+                Order created = creation.get();
+                keyRepository.saveAndFlush(new OrderIdempotencyKey(key, requestHash, created.getId()));
+                return created;
+            });
+            return new Outcome(order, false);
+        } catch (DataIntegrityViolationException ex) {
+            // Another instance bound the key first; its order is the one to return.
+            OrderIdempotencyKey winner = keyRepository.findById(key).orElseThrow(() -> ex);
+            return replay(key, winner, requestHash);
+        }
+    }
+
+    private Outcome replay(String key, OrderIdempotencyKey stored, String requestHash) {
+        checkSameRequest(key, stored.getRequestHash(), requestHash);
+        return new Outcome(orderService.getOrderById(stored.getOrderId()), true);
+    }
+
+    private static Long await(String key, Attempt attempt) {
+        try {
+            return attempt.orderId.get(IN_FLIGHT_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException ex) {
+            throw new IdempotencyKeyConflictException(
+                    "Une requête avec la clé d'idempotence " + key + " est toujours en cours, réessayez plus tard");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for idempotency key " + key, ex);
+        } catch (ExecutionException ex) {
+            return null;
+        }
+    }
+
+    private static void checkSameRequest(String key, String expectedHash, String requestHash) {
+        if (!expectedHash.equals(requestHash)) {
+            throw new IdempotencyKeyConflictException(
+                    "La clé d'idempotence " + key + " a déjà été utilisée pour une autre commande");
+        }
+    }
+
+    private static String requestHash(String customerName,
+                                      String customerEmail,
+                                      Map<Long, Integer> productsAndQuantities,
+                                      LocalDateTime orderDate,
+                                      LocalDateTime deliveryDate) {
+        String canonical = String.join("\n",
+                Objects.toString(customerName != null ? customerName.trim() : null),
+                Objects.toString(customerEmail),
+                Objects.toString(productsAndQuantities != null ? new TreeMap<>(productsAndQuantities) : null),
+                Objects.toString(orderDate),
+                Objects.toString(deliveryDate));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    /** Order created for a key, and whether it was created by an earlier request. */
+    public static final class Outcome {
+        private final Order order;
+        private final boolean replayed;
+
+        private Outcome(Order order, boolean replayed) {
+            this.order = order;
+            this.replayed = replayed;
+        }
+
+        public Order getOrder() {
+            return order;
+        }
+
+        public boolean isReplayed() {
+            return replayed;
+        }
+    }
+
+    /** Request seen for a key; orderId completes with null when it failed without creating an order. */
+    private static final class Attempt {
+        private final String requestHash;
+        private final CompletableFuture<Long> orderId = new CompletableFuture<>();
+
+        private Attempt(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+}
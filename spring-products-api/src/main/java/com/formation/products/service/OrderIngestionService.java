@@ -0,0 +1,241 @@
+package com.formation.products.service;
+
+import com.formation.products.dto.OrderRequest;
+import com.formation.products.exception.OrderQueueFullException;
+import com.formation.products.exception.OrderRequestNotFoundException;
+import com.formation.products.exception.OrderStockException;
+import com.formation.products.model.Order;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Asynchronous order ingestion behind POST /api/v1/orders/requests.
+ * Orders are validated on submission, then put on a bounded in-process queue; when it is full
+ * submission fails with a 429 instead of queueing more work than the writers can absorb.
+ * Writer threads take up to batch-size orders at a time and place them in a single transaction,
+ * so a burst costs one commit per batch instead of one per order. Orders rejected for stock or
+ * validation reasons are skipped without affecting the rest of the batch; if the batch
+ * transaction itself fails, its orders are retried one transaction each.
+ * Queued orders live in memory only: they are written on shutdown but lost if the process
+ * crashes. Tracking entries are kept for an hour after they finish.
+ */
+@Service
+public class OrderIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderIngestionService.class);
+
+    private static final Duration FINISHED_REQUEST_RETENTION = Duration.ofHours(1);
+    private static final String WRITE_FAILURE = "La commande n'a pas pu être enregistrée";
+
+    private final int capacity;
+    private final int writers;
+    private final int batchSize;
+    private final OrderService orderService;
+    private final ProductStockService productStockService;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final BlockingQueue<QueuedOrder> queue;
+    private final Map<String, OrderRequest> requests = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    public OrderIngestionService(@Value("${app.orders.ingestion.queue-capacity:10000}") int capacity,
+                                 @Value("${app.orders.ingestion.writers:2}") int writers,
+                                 @Value("${app.orders.ingestion.batch-size:50}") int batchSize,
+                                 OrderService orderService,
+                                 ProductStockService productStockService,
+                                 TransactionTemplate transactionTemplate,
+                                 Validator validator) {
+        this.capacity = capacity;
+        this.writers = writers;
+        this.batchSize = batchSize;
+        this.orderService = orderService;
+        this.productStockService = productStockService;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(writers, runnable -> {
+            Thread thread = new Thread(runnable, "order-writer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void startWriters() {
+        for (int i = 0; i < writers; i++) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Validates the order and queues it; returns immediately with its tracking entry.
+     * Stock is only checked when the order is written.
+     */
+    public OrderRequest submit(String customerName,
+                               String customerEmail,
+                               Map<Long, Integer> productsAndQuantities,
+                               LocalDateTime orderDate,
+                               LocalDateTime deliveryDate) {
+        Map<Long, Integer> quantities = OrderService.validQuantities(productsAndQuantities);
+        Set<ConstraintViolation<Order>> violations =
+                validator.validate(orderService.newOrder(customerName, customerEmail, orderDate, deliveryDate));
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        OrderRequest request = new OrderRequest();
+        requests.put(request.getId(), request);
+        if (!queue.offer(new QueuedOrder(request, customerName, customerEmail, quantities, orderDate, deliveryDate))) {
+            requests.remove(request.getId());
+            throw new OrderQueueFullException(capacity);
+        }
+        return request;
+    }
+
+    public OrderRequest getRequest(String id) {
+        OrderRequest request = requests.get(id);
+        if (request == null) {
+            throw new OrderRequestNotFoundException(id);
+        }
+        return request;
+    }
+
+    /**
+     * Stops the writers, then writes what is still queued.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        List<QueuedOrder> remaining = new ArrayList<>();
+        while (queue.drainTo(remaining, batchSize) > 0) {
+            write(remaining);
+            remaining.clear();
+        }
+    }
+
+    private void drain() {
+        List<QueuedOrder> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Places the batch in one transaction; tracking entries are only updated once it commits.
+     * All the products of the batch are locked upfront in id order: the orders of a batch
+     * reserve stock one after the other, which could otherwise lock rows out of order and
+     * deadlock with another writer.
+     */
+    private void write(List<QueuedOrder> batch) {
+        Map<QueuedOrder, Order> placed = new LinkedHashMap<>();
+        Map<QueuedOrder, String> rejected = new LinkedHashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                placed.clear();
+                rejected.clear();
+                productStockService.lockForReservation(batch.stream()
+                        .flatMap(queued -> queued.quantities.keySet().stream())
+                        .toList());
+                for (QueuedOrder queued : batch) {
+                    try {
+                        placed.put(queued, place(queued));
+                    } catch (OrderStockException | IllegalArgumentException ex) {
+                        rejected.put(queued, describe(ex));
+                    }
+                }
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Order batch of {} failed, retrying its orders one by one", batch.size(), ex);
+            batch.forEach(this::writeAlone);
+            return;
+        }
+        placed.forEach((queued, order) -> queued.request.complete(order.getId(), order.getOrderNumber()));
+        rejected.forEach((queued, error) -> queued.request.fail(error));
+    }
+
+    private void writeAlone(QueuedOrder queued) {
+        try {
+            Order order = transactionTemplate.execute(status -> place(queued));
+            queued.request.complete(order.getId(), order.getOrderNumber());
+        } catch (OrderStockException | IllegalArgumentException | ConstraintViolationException ex) {
+            queued.request.fail(describe(ex));
+        } catch (RuntimeException ex) {
+            log.error("Order request {} could not be written", queued.request.getId(), ex);
+            queued.request.fail(WRITE_FAILURE);
+        }
+    }
+
+    private Order place(QueuedOrder queued) {
+        return orderService.placeOrder(queued.customerName, queued.customerEmail, queued.quantities,
+                queued.orderDate, queued.deliveryDate);
+    }
+
+    private static String describe(RuntimeException ex) {
+        if (ex instanceof OrderStockException stock) {
+            return stock.getMessage() + ": " + stock.getShortages().stream()
+                    .map(s -> String.format("%s (ID %d) demandé %d, disponible %d",
+                            s.getProductName(), s.getProductId(), s.getRequested(), s.getAvailable()))
+                    .collect(Collectors.joining("; "));
+        }
+        return ex.getMessage();
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void purgeFinishedRequests() {
+        LocalDateTime threshold = LocalDateTime.now().minus(FINISHED_REQUEST_RETENTION);
+        requests.values().removeIf(request -> request.isFinished() && request.getFinishedAt().isBefore(threshold));
+    }
+
+    private static final class QueuedOrder {
+        private final OrderRequest request;
+        private final String customerName;
+        private final String customerEmail;
+        private final Map<Long, Integer> quantities;
+        private final LocalDateTime orderDate;
+        private final LocalDateTime deliveryDate;
+
+        private QueuedOrder(OrderRequest request, String customerName, String customerEmail,
+                            Map<Long, Integer> quantities, LocalDateTime orderDate, LocalDateTime deliveryDate) {
+            this.request = request;
+            this.customerName = customerName;
+            this.customerEmail = customerEmail;
+            this.quantities = quantities;
+            this.orderDate = orderDate;
+            this.deliveryDate = deliveryDate;
+        }
+    }
+}
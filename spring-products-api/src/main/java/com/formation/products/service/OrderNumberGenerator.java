@@ -0,0 +1,12 @@
+package com.formation.products.service;
+
+/**
+ * Source of order numbers, assigned when an order is placed.
+ * Numbers must be unique, at most 50 characters, and should sort by creation time: order_number
+ * is uniquely indexed, and time-ordered values keep inserts at the right edge of that index.
+ * The default is {@link TimeOrderedOrderNumberGenerator}; declare a @Primary bean to replace it.
+ */
+public interface OrderNumberGenerator {
+
+    String next();
+}
@@ -1,34 +1,59 @@
 package com.formation.products.service;
 
+import com.formation.products.dto.CursorPage;
+import com.formation.products.dto.KeysetCursor;
 import com.formation.products.model.Order;
 import com.formation.products.model.OrderItem;
 import com.formation.products.model.OrderStatus;
 import com.formation.products.model.Product;
 import com.formation.products.repository.OrderRepository;
 import com.formation.products.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
 
+    private static final int MAX_CURSOR_LIMIT = 100;
+    private static final SparseProjection ORDER_PROJECTION = orderProjection();
+
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
+    private final ProductStockService productStockService;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final EntityManager entityManager;
 
-    public OrderService(OrderRepository orderRepository, ProductRepository productRepository) {
+    public OrderService(OrderRepository orderRepository,
+                        ProductRepository productRepository,
+                        ProductStockService productStockService,
+                        OrderNumberGenerator orderNumberGenerator,
+                        EntityManager entityManager) {
         this.orderRepository = orderRepository;
         this.productRepository = productRepository;
+        this.productStockService = productStockService;
+        this.orderNumberGenerator = orderNumberGenerator;
+        this.entityManager = entityManager;
     }
 
     /**
-     * Creates an order from a map of product IDs to quantities.
-     * Each product is resolved from the database, transformed into an OrderItem, then
-     * the order total is computed before persistence.
+     * Creates an order from a map of product IDs to quantities, all or nothing.
+     * Stock is reserved first for every line (see {@link ProductStockService#reserve}), then all
+     * products are resolved with one IN query and the order and its items are inserted in JDBC
+     * batches. Any failure rolls back the reservations with the order.
      */
     @Transactional
     public Order createOrder(String customerName,
@@ -36,10 +61,50 @@ public class OrderService {
                              Map<Long, Integer> productsAndQuantities,
                              LocalDateTime orderDate,
                              LocalDateTime deliveryDate) {
-        if (productsAndQuantities == null || productsAndQuantities.isEmpty()) {
-            throw new IllegalArgumentException("At least one product is required to create an order");
+        return placeOrder(customerName, customerEmail, productsAndQuantities, orderDate, deliveryDate);
+    }
+
+    /**
+     * Body of createOrder, run in the caller's transaction. Invalid input and stock shortages
+     * are thrown before anything is written, without marking the transaction rollback-only, so
+     * the caller can go on with other orders in the same transaction.
+     */
+    public Order placeOrder(String customerName,
+                            String customerEmail,
+                            Map<Long, Integer> productsAndQuantities,
+                            LocalDateTime orderDate,
+                            LocalDateTime deliveryDate) {
+        Order order = newOrder(customerName, customerEmail, orderDate, deliveryDate);
+        Map<Long, Integer> quantities = validQuantities(productsAndQuantities);
+
+        productStockService.reserve(quantities);
+        Map<Long, Product> products = productRepository.findByIdInWithCategoryAndSupplier(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Long productId = entry.getKey();
+            int quantity = entry.getValue();
+            Product product = products.get(productId);
+            if (product == null) {
+                throw new IllegalArgumentException("Product not found with id " + productId);
+            }
+
+            OrderItem item = new OrderItem();
+            item.setProduct(product);
+            item.setQuantity(quantity);
+            item.setUnitPrice(product.getPrice() != null ? product.getPrice() : BigDecimal.ZERO);
+            order.addItem(item);
         }
 
+        order.calculateTotal();
+        order.setOrderNumber(orderNumberGenerator.next());
+        return orderRepository.save(order);
+    }
+
+    /**
+     * New order without items; validated by Hibernate Validator when it is persisted.
+     */
+    Order newOrder(String customerName, String customerEmail, LocalDateTime orderDate, LocalDateTime deliveryDate) {
         Order order = new Order();
         order.setCustomerName(customerName != null ? customerName.trim() : null);
         order.setCustomerEmail(customerEmail);
@@ -49,26 +114,22 @@ public class OrderService {
         if (deliveryDate != null) {
             order.setDeliveryDate(deliveryDate);
         }
+        return order;
+    }
 
+    static Map<Long, Integer> validQuantities(Map<Long, Integer> productsAndQuantities) {
+        if (productsAndQuantities == null || productsAndQuantities.isEmpty()) {
+            throw new IllegalArgumentException("At least one product is required to create an order");
+        }
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
         for (Map.Entry<Long, Integer> entry : productsAndQuantities.entrySet()) {
-            Long productId = entry.getKey();
             int quantity = entry.getValue() != null ? entry.getValue() : 0;
             if (quantity <= 0) {
-                throw new IllegalArgumentException("Quantity must be >= 1 for product " + productId);
+                throw new IllegalArgumentException("Quantity must be >= 1 for product " + entry.getKey());
             }
-
-            Product product = productRepository.findByIdWithCategoryAndSupplier(productId)
-                    .orElseThrow(() -> new IllegalArgumentException("Product not found with id " + productId));
-
-            OrderItem item = new OrderItem();
-            item.setProduct(product);
-            item.setQuantity(quantity);
-            item.setUnitPrice(product.getPrice() != null ? product.getPrice() : BigDecimal.ZERO);
-            order.addItem(item);
+            quantities.put(entry.getKey(), quantity);
         }
-
-        order.calculateTotal();
-        return orderRepository.save(order);
+        return quantities;
     }
 
     @Transactional
@@ -79,9 +140,66 @@ public class OrderService {
         orderRepository.save(order);
     }
 
+    /**
+     * One keyset page of orders, newest first on (orderDate, id), filtered by customer email or
+     * else by status when given. Paging is done in SQL on ids only; the details (items, products)
+     * are then fetched for the ids of the page alone, avoiding an unbounded fetch-join.
+     */
     @Transactional(readOnly = true)
-    public List<Order> getAllOrders() {
-        return orderRepository.findAllWithDetails();
+    public CursorPage<Order> getOrders(String customerEmail, OrderStatus status, String after, int limit) {
+        CursorPage<Long> ids = findIdPage(customerEmail, status, after, limit);
+        return new CursorPage<>(findWithDetailsInOrder(ids.getContent()), ids.getLimit(), ids.getNextCursor());
+    }
+
+    /**
+     * Ids of one keyset page of orders, newest first on (orderDate, id), with the next cursor.
+     */
+    private CursorPage<Long> findIdPage(String customerEmail, OrderStatus status, String after, int limit) {
+        int resolvedLimit = Math.max(1, Math.min(limit, MAX_CURSOR_LIMIT));
+        KeysetCursor cursor = after == null || after.isBlank() ? null : KeysetCursor.decode(after);
+        List<Object[]> rows = findKeysetIdPage(customerEmail, status, cursor, PageRequest.of(0, resolvedLimit + 1));
+
+        List<Object[]> page = rows.size() > resolvedLimit ? rows.subList(0, resolvedLimit) : rows;
+        List<Long> ids = page.stream().map(row -> (Long) row[0]).toList();
+        String nextCursor = null;
+        if (rows.size() > resolvedLimit) {
+            Object[] last = page.get(page.size() - 1);
+            nextCursor = new KeysetCursor((LocalDateTime) last[1], (Long) last[0]).encode();
+        }
+        return new CursorPage<>(ids, resolvedLimit, nextCursor);
+    }
+
+    private List<Object[]> findKeysetIdPage(String customerEmail, OrderStatus status, KeysetCursor cursor, PageRequest probe) {
+        if (customerEmail != null) {
+            return cursor == null
+                    ? orderRepository.findFirstKeysetIdPageByCustomerEmail(customerEmail, probe)
+                    : orderRepository.findKeysetIdPageByCustomerEmailAfter(customerEmail, cursor.getTimestamp(), cursor.getId(), probe);
+        }
+        if (status != null) {
+            return cursor == null
+                    ? orderRepository.findFirstKeysetIdPageByStatus(status, probe)
+                    : orderRepository.findKeysetIdPageByStatusAfter(status, cursor.getTimestamp(), cursor.getId(), probe);
+        }
+        return cursor == null
+                ? orderRepository.findFirstKeysetIdPage(probe)
+                : orderRepository.findKeysetIdPageAfter(cursor.getTimestamp(), cursor.getId(), probe);
+    }
+
+    /**
+     * Loads orders with their details in one query and returns them in the order of the ids.
+     * Ids of orders deleted in the meantime are skipped.
+     */
+    private List<Order> findWithDetailsInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> positions = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            positions.put(ids.get(i), i);
+        }
+        return orderRepository.findByIdInWithDetails(ids).stream()
+                .sorted(Comparator.comparing(o -> positions.get(o.getId())))
+                .toList();
     }
 
     @Transactional(readOnly = true)
@@ -90,14 +208,70 @@ public class OrderService {
                 .orElseThrow(() -> new IllegalArgumentException("Order not found with id " + id));
     }
 
+    /**
+     * Sparse variant of the order listing, paged like {@link #getOrders}: the page ids are
+     * selected first, then only the requested order fields are read for those ids, and items
+     * are loaded with one extra query (without the order/product graph) when expand=items is
+     * requested.
+     */
     @Transactional(readOnly = true)
-    public List<Order> getOrdersByCustomerEmail(String email) {
-        return orderRepository.findByCustomerEmailWithDetails(email);
+    public CursorPage<Map<String, Object>> getOrderFields(String fields, String expand, String customerEmail,
+                                                          OrderStatus status, String after, int limit) {
+        SparseProjection.Selection selection = ORDER_PROJECTION.select(fields, expand);
+        CursorPage<Long> page = findIdPage(customerEmail, status, after, limit);
+        if (page.getContent().isEmpty()) {
+            return new CursorPage<>(List.of(), page.getLimit(), page.getNextCursor());
+        }
+        List<Tuple> rows = entityManager
+                .createQuery(selection.query("o.id IN :ids", "o.orderDate DESC, o.id DESC", "o.id"), Tuple.class)
+                .setParameter("ids", page.getContent())
+                .getResultList();
+        List<Map<String, Object>> orders = rows.stream().map(selection::toMap).toList();
+        if (selection.isExpanded("items") && !rows.isEmpty()) {
+            List<Long> ids = rows.stream().map(row -> row.get("extra0", Long.class)).toList();
+            Map<Long, List<Map<String, Object>>> items = findItemsByOrderIds(ids);
+            for (int i = 0; i < orders.size(); i++) {
+                orders.get(i).put("items", items.getOrDefault(ids.get(i), List.of()));
+            }
+        }
+        return new CursorPage<>(orders, page.getLimit(), page.getNextCursor());
     }
 
-    @Transactional(readOnly = true)
-    public List<Order> getOrdersByStatus(OrderStatus status) {
-        return orderRepository.findByStatusWithDetails(status);
+    private Map<Long, List<Map<String, Object>>> findItemsByOrderIds(List<Long> orderIds) {
+        List<Tuple> rows = entityManager.createQuery("""
+                        SELECT i.order.id AS orderId, i.id AS id, p.id AS productId, p.name AS productName,
+                               i.quantity AS quantity, i.unitPrice AS unitPrice, i.subtotal AS subtotal
+                        FROM OrderItem i JOIN i.product p
+                        WHERE i.order.id IN :orderIds
+                        ORDER BY i.id
+                        """, Tuple.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+        Map<Long, List<Map<String, Object>>> items = new HashMap<>();
+        for (Tuple row : rows) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", row.get("id"));
+            item.put("productId", row.get("productId"));
+            item.put("productName", row.get("productName"));
+            item.put("quantity", row.get("quantity"));
+            item.put("unitPrice", row.get("unitPrice"));
+            item.put("subtotal", row.get("subtotal"));
+            items.computeIfAbsent(row.get("orderId", Long.class), id -> new ArrayList<>()).add(item);
+        }
+        return items;
+    }
+
+    private static SparseProjection orderProjection() {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("id", "o.id");
+        fields.put("orderNumber", "o.orderNumber");
+        fields.put("customerName", "o.customerName");
+        fields.put("customerEmail", "o.customerEmail");
+        fields.put("status", "o.status");
+        fields.put("totalAmount", "o.totalAmount");
+        fields.put("orderDate", "o.orderDate");
+        fields.put("deliveryDate", "o.deliveryDate");
+        return new SparseProjection("Order o", fields, Map.of("items", SparseProjection.Expansion.separate()));
     }
 }
 
@@ -0,0 +1,252 @@
+package com.formation.products.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index of product ids ordered by (price, id), stored as two parallel primitive
+ * arrays (price in cents, id). Readers binary-search an immutable snapshot without locking:
+ * a price range or a top-N costs O(log n + k). Rebuilding the snapshot costs O(n), so it is
+ * never done on a request thread: the index is loaded on startup, then the writes of every
+ * instance, this one included, are read from the product change feed every
+ * app.price-index.refresh-interval and merged in one rebuild per batch. If the feed was purged
+ * past our position, the index is reloaded. Disabled with app.price-index.enabled=false, in
+ * which case callers fall back to the database.
+ */
+@Component
+public class PriceIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceIndex.class);
+
+    /** Change feed entries read per refresh query. */
+    private static final int REFRESH_BATCH_SIZE = 1000;
+
+    private final boolean enabled;
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Snapshot snapshot;
+    /** Last change feed seq reflected in the snapshot; guarded by this. */
+    private long position;
+
+    public PriceIndex(@Value("${app.price-index.enabled:true}") boolean enabled, JdbcTemplate jdbcTemplate) {
+        this.enabled = enabled;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Loads the index from the table. The feed position is read first, so a change committed
+     * while the table is read is also picked up by the next refresh.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        if (!enabled) {
+            return;
+        }
+        long start = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(seq), 0) FROM product_changes", Long.class);
+        Map<Long, Long> prices = new HashMap<>();
+        jdbcTemplate.query("SELECT id, price FROM products WHERE price IS NOT NULL", rs -> {
+            prices.put(rs.getLong(1), toCents(rs.getBigDecimal(2)));
+        });
+        snapshot = Snapshot.EMPTY.with(prices);
+        position = start;
+        log.info("Price index loaded with {} product(s)", prices.size());
+    }
+
+    /**
+     * Applies the products changed since the last refresh, on any instance, with their current price.
+     */
+    @Scheduled(fixedDelayString = "${app.price-index.refresh-interval:1000}")
+    public synchronized void refresh() {
+        if (!enabled || snapshot == null) {
+            return;
+        }
+        try {
+            Long oldest = jdbcTemplate.queryForObject("SELECT MIN(seq) FROM product_changes", Long.class);
+            if (oldest != null && position < oldest - 1) {
+                log.info("Price index position {} was purged from the change feed, reloading", position);
+                load();
+                return;
+            }
+            int read;
+            do {
+                Map<Long, Long> changes = new HashMap<>();
+                long[] last = {position};
+                read = jdbcTemplate.query("""
+                                SELECT c.seq, c.product_id, p.price
+                                FROM product_changes c LEFT JOIN products p ON p.id = c.product_id
+                                WHERE c.seq > ? ORDER BY c.seq LIMIT %d
+                                """.formatted(REFRESH_BATCH_SIZE),
+                        (rs, rowNum) -> {
+                            last[0] = rs.getLong(1);
+                            BigDecimal price = rs.getBigDecimal(3);
+                            changes.put(rs.getLong(2), price != null ? toCents(price) : null);
+                            return null;
+                        }, position).size();
+                apply(changes);
+                position = last[0];
+            } while (read == REFRESH_BATCH_SIZE);
+        } catch (DataAccessException ex) {
+            log.warn("Price index refresh failed, retrying on next refresh", ex);
+        }
+    }
+
+    /**
+     * False until loaded (or when disabled): callers must then query the database.
+     */
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * Ids of products priced within [min, max] (either bound optional), by price then id.
+     */
+    public List<Long> findIdsInRange(BigDecimal min, BigDecimal max, int offset, int limit) {
+        Snapshot current = snapshot;
+        int from = min != null ? current.lowerBound(toCents(min)) : 0;
+        int to = max != null ? current.upperBound(toCents(max)) : current.size();
+        List<Long> ids = new ArrayList<>(Math.max(0, Math.min(limit, to - from - offset)));
+        for (int i = from + offset; i < to && ids.size() < limit; i++) {
+            ids.add(current.ids[i]);
+        }
+        return ids;
+    }
+
+    public int countInRange(BigDecimal min, BigDecimal max) {
+        Snapshot current = snapshot;
+        int from = min != null ? current.lowerBound(toCents(min)) : 0;
+        int to = max != null ? current.upperBound(toCents(max)) : current.size();
+        return Math.max(0, to - from);
+    }
+
+    /**
+     * Ids of the most expensive products, by price descending then id descending.
+     */
+    public List<Long> findTopIds(int limit) {
+        Snapshot current = snapshot;
+        List<Long> ids = new ArrayList<>(Math.min(limit, current.size()));
+        for (int i = current.size() - 1; i >= 0 && ids.size() < limit; i--) {
+            ids.add(current.ids[i]);
+        }
+        return ids;
+    }
+
+    /** Guarded by this. */
+    private void apply(Map<Long, Long> changes) {
+        Snapshot current = snapshot;
+        if (!changes.isEmpty() && !current.isUpToDate(changes)) {
+            snapshot = current.with(changes);
+        }
+    }
+
+    private static long toCents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Immutable (price, id)-sorted arrays. A change maps an id to its new price in cents, or to
+     * null when the product is gone.
+     */
+    private static final class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(new long[0], new long[0]);
+
+        private final long[] prices;
+        private final long[] ids;
+
+        private Snapshot(long[] prices, long[] ids) {
+            this.prices = prices;
+            this.ids = ids;
+        }
+
+        private int size() {
+            return ids.length;
+        }
+
+        /** First position whose price is >= cents. */
+        private int lowerBound(long cents) {
+            int low = 0;
+            int high = prices.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prices[mid] < cents) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /** First position whose price is > cents. */
+        private int upperBound(long cents) {
+            return cents == Long.MAX_VALUE ? prices.length : lowerBound(cents + 1);
+        }
+
+        private boolean isUpToDate(Map<Long, Long> changes) {
+            for (Map.Entry<Long, Long> change : changes.entrySet()) {
+                if (change.getValue() == null || !contains(change.getValue(), change.getKey())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean contains(long cents, long id) {
+            for (int i = lowerBound(cents); i < prices.length && prices[i] == cents; i++) {
+                if (ids[i] == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private Snapshot with(Map<Long, Long> changes) {
+            List<long[]> added = new ArrayList<>();
+            changes.forEach((id, cents) -> {
+                if (cents != null) {
+                    added.add(new long[] {cents, id});
+                }
+            });
+            added.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+            long[] newPrices = new long[ids.length + added.size()];
+            long[] newIds = new long[newPrices.length];
+            int size = 0;
+            int next = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (changes.containsKey(ids[i])) {
+                    continue;
+                }
+                while (next < added.size() && precedes(added.get(next), prices[i], ids[i])) {
+                    newPrices[size] = added.get(next)[0];
+                    newIds[size++] = added.get(next++)[1];
+                }
+                newPrices[size] = prices[i];
+                newIds[size++] = ids[i];
+            }
+            for (; next < added.size(); next++) {
+                newPrices[size] = added.get(next)[0];
+                newIds[size++] = added.get(next)[1];
+            }
+            return new Snapshot(Arrays.copyOf(newPrices, size), Arrays.copyOf(newIds, size));
+        }
+
+        private static boolean precedes(long[] entry, long cents, long id) {
+            return entry[0] < cents || (entry[0] == cents && entry[1] < id);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.formation.products.service;
+
+import com.formation.products.model.Product;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded read-through cache of fully hydrated products (category and supplier initialized),
+ * keyed by id. Entries expire after a TTL and the least recently used ones are evicted past
+ * the maximum size. Writers must evict the affected entries; evictions are repeated after
+ * commit so a concurrent reader cannot re-cache the pre-commit state.
+ */
+@Component
+public class ProductCache {
+
+    private final Cache<Long, Product> cache;
+
+    public ProductCache(@Value("${app.cache.products.max-size:10000}") long maxSize,
+                        @Value("${app.cache.products.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached product or loads it with the given loader. Missing products are not cached.
+     */
+    public Optional<Product> get(Long id, Supplier<Optional<Product>> loader) {
+        return Optional.ofNullable(cache.get(id, key -> loader.get().orElse(null)));
+    }
+
+    /**
+     * Returns the cached products and loads all the others with a single call to the loader.
+     * Products the loader does not return are absent from the result and not cached.
+     */
+    public Map<Long, Product> getAll(Collection<Long> ids, Function<Set<? extends Long>, Map<Long, Product>> loader) {
+        return cache.getAll(ids, loader::apply);
+    }
+
+    /**
+     * Returns the cached product without loading it on a miss.
+     */
+    public Optional<Product> peek(Long id) {
+        return Optional.ofNullable(cache.getIfPresent(id));
+    }
+
+    public void evict(Long id) {
+        cache.invalidate(id);
+        afterCommit(() -> cache.invalidate(id));
+    }
+
+    public void evictByCategory(Long categoryId) {
+        Runnable eviction = () -> cache.asMap().values().removeIf(p ->
+                p.getCategory() != null && Objects.equals(p.getCategory().getId(), categoryId));
+        eviction.run();
+        afterCommit(eviction);
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+        afterCommit(cache::invalidateAll);
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        return result;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.formation.products.service;
+
+import com.formation.products.dto.ProductChangeEntry;
+import com.formation.products.dto.ProductChangePage;
+import com.formation.products.dto.ProductSummary;
+import com.formation.products.exception.ProductChangesExpiredException;
+import com.formation.products.model.ProductChange;
+import com.formation.products.model.ProductChangeType;
+import com.formation.products.repository.ProductChangeRepository;
+import com.formation.products.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only log of product changes behind GET /api/v1/products/changes.
+ * Write paths record the ids they touched; the entries of a transaction are merged per product
+ * and inserted right before it commits, under a transaction-scoped advisory lock. Sequence
+ * numbers are therefore assigned in commit order and a consumer polling with the last seq it
+ * saw never skips a change committed later with a lower number. Once the transaction commits,
+ * its last seq advances the in-memory {@link CatalogVersion}.
+ * Entries older than the retention are purged; consumers whose position was purged get a 410
+ * and must resynchronize from a full export.
+ */
+@Component
+public class ProductChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangeFeed.class);
+
+    private static final int MAX_LIMIT = 1000;
+
+    /** Arbitrary key of the advisory lock serializing change feed appends. */
+    private static final long APPEND_LOCK_KEY = 0x70726f6463686eL;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO product_changes (product_id, change_type, previous_category_id, changed_at) VALUES (?, ?, ?, ?)";
+
+    private final Duration retention;
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductChangeRepository productChangeRepository;
+    private final ProductRepository productRepository;
+    private final CatalogVersion catalogVersion;
+
+    public ProductChangeFeed(@Value("${app.changes.retention:7d}") Duration retention,
+                             JdbcTemplate jdbcTemplate,
+                             ProductChangeRepository productChangeRepository,
+                             ProductRepository productRepository,
+                             CatalogVersion catalogVersion) {
+        this.retention = retention;
+        this.jdbcTemplate = jdbcTemplate;
+        this.productChangeRepository = productChangeRepository;
+        this.productRepository = productRepository;
+        this.catalogVersion = catalogVersion;
+    }
+
+    public void recordUpsert(Long productId) {
+        record(List.of(productId), ProductChangeType.UPSERT, null);
+    }
+
+    public void recordUpserts(Collection<Long> productIds) {
+        record(productIds, ProductChangeType.UPSERT, null);
+    }
+
+    public void recordDelete(Long productId) {
+        record(List.of(productId), ProductChangeType.DELETE, null);
+    }
+
+    public void recordCategoryChanges(Collection<Long> productIds, Long previousCategoryId) {
+        record(productIds, ProductChangeType.CATEGORY_CHANGE, previousCategoryId);
+    }
+
+    /**
+     * Changes committed after since, oldest first, with the current state of each product.
+     */
+    public ProductChangePage getChanges(long since, int limit) {
+        int resolvedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<ProductChange> rows = productChangeRepository.findAfter(since, PageRequest.of(0, resolvedLimit + 1));
+        if (rows.isEmpty() || rows.get(0).getSeq() > since + 1) {
+            checkNotPurged(since);
+        }
+        boolean hasMore = rows.size() > resolvedLimit;
+        List<ProductChange> page = hasMore ? rows.subList(0, resolvedLimit) : rows;
+
+        List<Long> liveIds = page.stream()
+                .filter(c -> c.getType() != ProductChangeType.DELETE)
+                .map(ProductChange::getProductId)
+                .distinct()
+                .toList();
+        Map<Long, ProductSummary> products = liveIds.isEmpty() ? Map.of()
+                : productRepository.findSummariesByIdIn(liveIds).stream()
+                        .collect(Collectors.toMap(ProductSummary::getId, Function.identity()));
+        List<ProductChangeEntry> entries = page.stream()
+                .map(c -> new ProductChangeEntry(c.getSeq(), c.getProductId(), c.getType(),
+                        c.getPreviousCategoryId(), c.getChangedAt(),
+                        c.getType() == ProductChangeType.DELETE ? null : products.get(c.getProductId())))
+                .toList();
+        long next = page.isEmpty() ? since : page.get(page.size() - 1).getSeq();
+        return new ProductChangePage(entries, next, hasMore);
+    }
+
+    /**
+     * Deletes entries older than the retention, always keeping the newest one so that purged
+     * positions can still be told apart from an idle feed.
+     */
+    @Scheduled(fixedDelayString = "${app.changes.purge-interval:3600000}")
+    public void purge() {
+        Timestamp threshold = Timestamp.valueOf(LocalDateTime.now().minus(retention));
+        int purged = jdbcTemplate.update(
+                "DELETE FROM product_changes WHERE changed_at < ? AND seq < (SELECT MAX(seq) FROM product_changes)",
+                threshold);
+        if (purged > 0) {
+            log.info("Purged {} product change(s) older than {}", purged, retention);
+        }
+    }
+
+    /**
+     * Seq values are never reused, so a gap right after since means the entries were purged
+     * (or, rarely, that the transactions holding them rolled back).
+     */
+    private void checkNotPurged(long since) {
+        Long oldest = productChangeRepository.findOldestSeq();
+        if (since > 0 && oldest != null && since < oldest - 1) {
+            throw new ProductChangesExpiredException(since);
+        }
+    }
+
+    private void record(Collection<Long> productIds, ProductChangeType type, Long previousCategoryId) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Map<Long, PendingChange> pending = pendingChanges();
+        for (Long productId : productIds) {
+            pending.merge(productId, new PendingChange(type, previousCategoryId), PendingChange::merge);
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            catalogVersion.productsCommitted(append(pending));
+        }
+    }
+
+    /**
+     * Changes pending in the current transaction. They are kept by its synchronization rather
+     * than bound as a resource, so that a nested REQUIRES_NEW transaction gets its own.
+     */
+    private Map<Long, PendingChange> pendingChanges() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new LinkedHashMap<>();
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof AppendBeforeCommit append && append.owner() == this) {
+                return append.pending;
+            }
+        }
+        AppendBeforeCommit append = new AppendBeforeCommit();
+        TransactionSynchronizationManager.registerSynchronization(append);
+        return append.pending;
+    }
+
+    /**
+     * Appends the entries and returns the last seq, which is ours while the lock is held.
+     */
+    private long append(Map<Long, PendingChange> pending) {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        // Held until commit: appends are serialized, so seq order is commit order.
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", rs -> {
+        }, APPEND_LOCK_KEY);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(pending.size());
+        pending.forEach((productId, change) ->
+                args.add(new Object[] {productId, change.type.name(), change.previousCategoryId, now}));
+        jdbcTemplate.batchUpdate(INSERT_SQL, args);
+        Long lastSeq = jdbcTemplate.queryForObject("SELECT MAX(seq) FROM product_changes", Long.class);
+        return lastSeq != null ? lastSeq : 0;
+    }
+
+    private final class AppendBeforeCommit implements TransactionSynchronization {
+        private final Map<Long, PendingChange> pending = new LinkedHashMap<>();
+        private long lastSeq;
+
+        private ProductChangeFeed owner() {
+            return ProductChangeFeed.this;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            lastSeq = append(pending);
+        }
+
+        @Override
+        public void afterCommit() {
+            catalogVersion.productsCommitted(lastSeq);
+        }
+    }
+
+    private static final class PendingChange {
+        private final ProductChangeType type;
+        private final Long previousCategoryId;
+
+        private PendingChange(ProductChangeType type, Long previousCategoryId) {
+            this.type = type;
+            this.previousCategoryId = previousCategoryId;
+        }
+
+        /** A delete wins over a category change, which wins over a plain update. */
+        private PendingChange merge(PendingChange later) {
+            ProductChangeType merged = later.type.compareTo(type) > 0 ? later.type : type;
+            return new PendingChange(merged, previousCategoryId != null ? previousCategoryId : later.previousCategoryId);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.formation.products.service;
+
+import com.formation.products.dto.FacetCount;
+import com.formation.products.dto.ProductFacets;
+import com.formation.products.dto.ProductFilter;
+import com.formation.products.dto.ProductSummary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class ProductFacetService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    /** Upper bounds (exclusive) of the price buckets; the last bucket is open-ended. */
+    private static final BigDecimal[] PRICE_BUCKET_BOUNDS = {
+            new BigDecimal("10"), new BigDecimal("50"), new BigDecimal("100"),
+            new BigDecimal("500"), new BigDecimal("1000")
+    };
+
+    private static final Comparator<FacetCount> BY_COUNT_DESC = Comparator
+            .comparingLong(FacetCount::getCount).reversed()
+            .thenComparing(FacetCount::getLabel, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductFilterQuery productFilterQuery;
+    private final CatalogSnapshot catalogSnapshot;
+
+    public ProductFacetService(JdbcTemplate jdbcTemplate, ProductFilterQuery productFilterQuery,
+                               CatalogSnapshot catalogSnapshot) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productFilterQuery = productFilterQuery;
+        this.catalogSnapshot = catalogSnapshot;
+    }
+
+    /**
+     * Counts matching products per category, supplier, price bucket and stock state, with the
+     * first page of matches (newest first). All facets are computed over the same filter.
+     * In snapshot mode everything comes from one pass over the in-heap catalog; otherwise the
+     * counts come from a single GROUPING SETS query and the page from {@link ProductFilterQuery}.
+     */
+    public ProductFacets getFacets(ProductFilter filter, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return catalogSnapshot.current()
+                .map(snapshot -> fromSnapshot(snapshot.getProducts(), filter, pageSize))
+                .orElseGet(() -> fromDatabase(filter, pageSize));
+    }
+
+    private ProductFacets fromSnapshot(List<ProductSummary> products, ProductFilter filter, int pageSize) {
+        FacetCounter categories = new FacetCounter();
+        FacetCounter suppliers = new FacetCounter();
+        long[] buckets = new long[PRICE_BUCKET_BOUNDS.length + 1];
+        long inStock = 0;
+        long total = 0;
+        List<ProductSummary> content = new ArrayList<>(pageSize);
+        for (ProductSummary product : products) {
+            if (!filter.matches(product)) {
+                continue;
+            }
+            total++;
+            if (content.size() < pageSize) {
+                content.add(product);
+            }
+            categories.add(product.getCategoryId(), product.getCategoryName());
+            suppliers.add(product.getSupplierId(), product.getSupplierName());
+            buckets[priceBucket(product.getPrice())]++;
+            if (product.getStock() > 0) {
+                inStock++;
+            }
+        }
+        List<FacetCount> priceBuckets = new ArrayList<>();
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            if (buckets[bucket] > 0) {
+                priceBuckets.add(priceBucketCount(bucket, buckets[bucket]));
+            }
+        }
+        return new ProductFacets(total, categories.toList(), suppliers.toList(), priceBuckets,
+                stockCounts(inStock, total - inStock), content);
+    }
+
+    private ProductFacets fromDatabase(ProductFilter filter, int pageSize) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder bucketCase = new StringBuilder("CASE");
+        for (int bucket = 0; bucket < PRICE_BUCKET_BOUNDS.length; bucket++) {
+            bucketCase.append(" WHEN p.price < ? THEN ").append(bucket);
+            args.add(PRICE_BUCKET_BOUNDS[bucket]);
+        }
+        bucketCase.append(" ELSE ").append(PRICE_BUCKET_BOUNDS.length).append(" END");
+
+        List<String> conditions = new ArrayList<>();
+        if (filter.getCategoryId() != null) {
+            conditions.add("p.category_id = ?");
+            args.add(filter.getCategoryId());
+        }
+        if (filter.getSupplierId() != null) {
+            conditions.add("p.supplier_id = ?");
+            args.add(filter.getSupplierId());
+        }
+        if (filter.getMinPrice() != null) {
+            conditions.add("p.price >= ?");
+            args.add(filter.getMinPrice());
+        }
+        if (filter.getMaxPrice() != null) {
+            conditions.add("p.price <= ?");
+            args.add(filter.getMaxPrice());
+        }
+        if (filter.getInStock() != null) {
+            conditions.add(filter.getInStock() ? "p.stock > 0" : "p.stock <= 0");
+        }
+        if (filter.getNamePrefix() != null) {
+            conditions.add("lower(p.name) LIKE ?");
+            args.add(escapeLikePattern(filter.getNamePrefix()) + "%");
+        }
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+
+        String sql = """
+                SELECT GROUPING(f.category_id), GROUPING(f.supplier_id), GROUPING(f.price_bucket), GROUPING(f.in_stock),
+                       f.category_id, MAX(f.category_name), f.supplier_id, MAX(f.supplier_name),
+                       f.price_bucket, f.in_stock, COUNT(*)
+                FROM (SELECT p.category_id, c.name AS category_name, p.supplier_id, s.name AS supplier_name,
+                             %s AS price_bucket, p.stock > 0 AS in_stock
+                      FROM products p
+                      LEFT JOIN categories c ON c.id = p.category_id
+                      LEFT JOIN suppliers s ON s.id = p.supplier_id%s) f
+                GROUP BY GROUPING SETS ((f.category_id), (f.supplier_id), (f.price_bucket), (f.in_stock), ())
+                """.formatted(bucketCase, where);
+
+        List<FacetCount> categories = new ArrayList<>();
+        List<FacetCount> suppliers = new ArrayList<>();
+        Map<Integer, FacetCount> priceBuckets = new HashMap<>();
+        long[] stock = new long[2];
+        long[] total = new long[1];
+        jdbcTemplate.query(sql, rs -> {
+            long count = rs.getLong(11);
+            if (rs.getInt(1) == 0) {
+                categories.add(new FacetCount(rs.getObject(5, Long.class), rs.getString(6), count));
+            } else if (rs.getInt(2) == 0) {
+                suppliers.add(new FacetCount(rs.getObject(7, Long.class), rs.getString(8), count));
+            } else if (rs.getInt(3) == 0) {
+                int bucket = rs.getInt(9);
+                priceBuckets.put(bucket, priceBucketCount(bucket, count));
+            } else if (rs.getInt(4) == 0) {
+                stock[rs.getBoolean(10) ? 0 : 1] = count;
+            } else {
+                total[0] = count;
+            }
+        }, args.toArray());
+        categories.sort(BY_COUNT_DESC);
+        suppliers.sort(BY_COUNT_DESC);
+
+        return new ProductFacets(total[0], categories, suppliers,
+                priceBuckets.keySet().stream().sorted().map(priceBuckets::get).toList(),
+                stockCounts(stock[0], stock[1]), productFilterQuery.findFirst(filter, pageSize));
+    }
+
+    private static String escapeLikePattern(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static int priceBucket(BigDecimal price) {
+        for (int bucket = 0; bucket < PRICE_BUCKET_BOUNDS.length; bucket++) {
+            if (price.compareTo(PRICE_BUCKET_BOUNDS[bucket]) < 0) {
+                return bucket;
+            }
+        }
+        return PRICE_BUCKET_BOUNDS.length;
+    }
+
+    /** Buckets are identified by their lower bound and labelled "10-50", ..., "1000+". */
+    private static FacetCount priceBucketCount(int bucket, long count) {
+        BigDecimal lower = bucket == 0 ? BigDecimal.ZERO : PRICE_BUCKET_BOUNDS[bucket - 1];
+        String label = bucket < PRICE_BUCKET_BOUNDS.length
+                ? lower.toPlainString() + "-" + PRICE_BUCKET_BOUNDS[bucket].toPlainString()
+                : lower.toPlainString() + "+";
+        return new FacetCount(lower, label, count);
+    }
+
+    private static List<FacetCount> stockCounts(long inStock, long outOfStock) {
+        return List.of(new FacetCount(true, "En stock", inStock), new FacetCount(false, "Rupture", outOfStock));
+    }
+
+    /** Counts per id, keeping the label of each id. */
+    private static final class FacetCounter {
+        private final Map<Long, long[]> counts = new HashMap<>();
+        private final Map<Long, String> labels = new HashMap<>();
+
+        private void add(Long id, String label) {
+            counts.computeIfAbsent(id, key -> new long[1])[0]++;
+            labels.putIfAbsent(id, label);
+        }
+
+        private List<FacetCount> toList() {
+            List<FacetCount> facets = new ArrayList<>(counts.size());
+            counts.forEach((id, count) -> facets.add(new FacetCount(id, labels.get(id), count[0])));
+            facets.sort(BY_COUNT_DESC);
+            return facets;
+        }
+    }
+}
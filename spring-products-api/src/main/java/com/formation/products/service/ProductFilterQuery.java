@@ -0,0 +1,142 @@
+package com.formation.products.service;
+
+import com.formation.products.dto.ProductFilter;
+import com.formation.products.dto.ProductSummary;
+import com.formation.products.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Product summaries matching any combination of {@link ProductFilter} predicates.
+ * The JPQL of each filter shape (which predicates are present, not their values) is assembled
+ * once from fixed fragments and cached; values are always bound as parameters, so every request
+ * of a shape sends the same query string and Hibernate reuses its parsed and translated plan
+ * from the query plan cache. There are at most 2^7 shapes.
+ */
+@Component
+public class ProductFilterQuery {
+
+    private static final String ORDER_BY = " ORDER BY p.createdAt DESC, p.id DESC";
+    private static final String COUNT_SELECT = "SELECT COUNT(p) FROM Product p";
+
+    private final EntityManager entityManager;
+    private final Map<Integer, CompiledFilter> compiled = new ConcurrentHashMap<>();
+
+    public ProductFilterQuery(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * One page of matching products, newest first, with the total count.
+     */
+    public Page<ProductSummary> find(ProductFilter filter, Pageable pageable) {
+        CompiledFilter query = compiled(filter);
+        TypedQuery<ProductSummary> select = bind(entityManager.createQuery(query.select, ProductSummary.class), filter);
+        List<ProductSummary> content = select
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        if (pageable.getOffset() == 0 && content.size() < pageable.getPageSize()) {
+            return new PageImpl<>(content, pageable, content.size());
+        }
+        TypedQuery<Long> count = bind(entityManager.createQuery(query.count, Long.class), filter);
+        return new PageImpl<>(content, pageable, count.getSingleResult());
+    }
+
+    /**
+     * The first matching products, newest first, without counting.
+     */
+    public List<ProductSummary> findFirst(ProductFilter filter, int limit) {
+        TypedQuery<ProductSummary> select = bind(entityManager.createQuery(compiled(filter).select, ProductSummary.class), filter);
+        return select.setMaxResults(limit).getResultList();
+    }
+
+    private CompiledFilter compiled(ProductFilter filter) {
+        int shape = 0;
+        for (Condition condition : Condition.values()) {
+            if (condition.appliesTo(filter)) {
+                shape |= 1 << condition.ordinal();
+            }
+        }
+        return compiled.computeIfAbsent(shape, ProductFilterQuery::compile);
+    }
+
+    private static CompiledFilter compile(int shape) {
+        List<String> conditions = new ArrayList<>();
+        for (Condition condition : Condition.values()) {
+            if ((shape & 1 << condition.ordinal()) != 0) {
+                conditions.add(condition.jpql);
+            }
+        }
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        return new CompiledFilter(ProductRepository.SUMMARY_SELECT + where + ORDER_BY, COUNT_SELECT + where);
+    }
+
+    private static <T> TypedQuery<T> bind(TypedQuery<T> query, ProductFilter filter) {
+        for (Condition condition : Condition.values()) {
+            if (condition.parameter != null && condition.appliesTo(filter)) {
+                query.setParameter(condition.parameter, condition.value.apply(filter));
+            }
+        }
+        return query;
+    }
+
+    private static String namePrefixPattern(ProductFilter filter) {
+        String prefix = filter.getNamePrefix();
+        if (prefix == null) {
+            return null;
+        }
+        // Backslash is the default LIKE escape character of PostgreSQL (and H2).
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    /**
+     * The predicates a filter can combine, in a fixed order so that a shape always yields the
+     * same query string. Category and supplier are compared on the foreign key, so the count
+     * query needs no join.
+     */
+    private enum Condition {
+        CATEGORY("p.category.id = :categoryId", "categoryId", ProductFilter::getCategoryId),
+        SUPPLIER("p.supplier.id = :supplierId", "supplierId", ProductFilter::getSupplierId),
+        MIN_PRICE("p.price >= :minPrice", "minPrice", ProductFilter::getMinPrice),
+        MAX_PRICE("p.price <= :maxPrice", "maxPrice", ProductFilter::getMaxPrice),
+        IN_STOCK("p.stock > 0", null, filter -> Boolean.TRUE.equals(filter.getInStock()) ? true : null),
+        OUT_OF_STOCK("p.stock <= 0", null, filter -> Boolean.FALSE.equals(filter.getInStock()) ? true : null),
+        // Matches the lower(name) text_pattern_ops index created by ProductSearchIndexInitializer.
+        NAME_PREFIX("LOWER(p.name) LIKE :namePrefix", "namePrefix", ProductFilterQuery::namePrefixPattern);
+
+        private final String jpql;
+        private final String parameter;
+        private final Function<ProductFilter, Object> value;
+
+        Condition(String jpql, String parameter, Function<ProductFilter, Object> value) {
+            this.jpql = jpql;
+            this.parameter = parameter;
+            this.value = value;
+        }
+
+        private boolean appliesTo(ProductFilter filter) {
+            return value.apply(filter) != null;
+        }
+    }
+
+    private static final class CompiledFilter {
+        private final String select;
+        private final String count;
+
+        private CompiledFilter(String select, String count) {
+            this.select = select;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.formation.products.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.formation.products.dto.ProductImportReport;
+import com.formation.products.dto.ProductImportRow;
+import com.formation.products.model.Category;
+import com.formation.products.model.Product;
+import com.formation.products.model.Supplier;
+import com.formation.products.repository.CategoryRepository;
+import com.formation.products.repository.ProductRepository;
+import com.formation.products.repository.SupplierRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk product import from CSV or NDJSON uploads.
+ * The upload is read line by line and processed in batches: rows are validated in parallel,
+ * SKUs are deduplicated in memory, categories/suppliers/existing SKUs are resolved with one
+ * query each per batch, and valid rows are written with a single JDBC batch insert.
+ */
+@Service
+public class ProductImportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    /** Must match the allocationSize of the products_seq generator on Product. */
+    private static final int ID_BLOCK_SIZE = 50;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO products (id, name, description, price, stock, sku, category_id, supplier_id, version, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, ?, ?)
+            ON CONFLICT (sku) DO NOTHING
+            """;
+
+    private static final String NEXT_ID_BLOCKS_SQL = "SELECT nextval('products_seq') FROM generate_series(1, ?)";
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final SupplierRepository supplierRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectReader rowReader;
+    private final ProductChangeFeed productChangeFeed;
+    private final SkuFilter skuFilter;
+
+    public ProductImportService(ProductRepository productRepository,
+                                CategoryRepository categoryRepository,
+                                SupplierRepository supplierRepository,
+                                JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                Validator validator,
+                                ObjectMapper objectMapper,
+                                ProductChangeFeed productChangeFeed,
+                                SkuFilter skuFilter) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.supplierRepository = supplierRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.rowReader = objectMapper.readerFor(ProductImportRow.class);
+        this.productChangeFeed = productChangeFeed;
+        this.skuFilter = skuFilter;
+    }
+
+    /**
+     * Imports every row of the stream. Each batch is committed in its own transaction so a
+     * large file never holds one huge transaction; invalid rows are reported, not fatal.
+     */
+    public ProductImportReport importProducts(InputStream input, Format format) throws IOException {
+        ProductImportReport report = new ProductImportReport(MAX_REPORTED_ERRORS);
+        Set<String> seenSkus = new HashSet<>();
+        List<ParsedRow> batch = new ArrayList<>(BATCH_SIZE);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String[] csvHeader = null;
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && csvHeader == null) {
+                    csvHeader = parseCsvLine(line).stream().map(String::trim).toArray(String[]::new);
+                    continue;
+                }
+                report.addRows(1);
+                try {
+                    ProductImportRow row = format == Format.CSV ? toRow(csvHeader, parseCsvLine(line)) : parseJson(line);
+                    batch.add(new ParsedRow(lineNumber, row));
+                } catch (IllegalArgumentException ex) {
+                    report.addError(lineNumber, null, ex.getMessage());
+                }
+                if (batch.size() >= BATCH_SIZE) {
+                    processBatch(batch, seenSkus, report);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            processBatch(batch, seenSkus, report);
+        }
+        return report;
+    }
+
+    private void processBatch(List<ParsedRow> batch, Set<String> seenSkus, ProductImportReport report) {
+        List<ValidatedRow> validated = batch.parallelStream()
+                .map(this::validate)
+                .toList();
+
+        List<ValidatedRow> candidates = new ArrayList<>();
+        for (ValidatedRow row : validated) {
+            if (row.error != null) {
+                report.addError(row.line, row.sku, row.error);
+            } else if (row.sku != null && !seenSkus.add(row.sku)) {
+                report.addError(row.line, row.sku, "SKU dupliqué dans le fichier: " + row.sku);
+            } else {
+                candidates.add(row);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> insertBatch(candidates, report));
+    }
+
+    private void insertBatch(List<ValidatedRow> candidates, ProductImportReport report) {
+        // Only SKUs the filter may have seen are looked up; ON CONFLICT catches the ones it has not.
+        Set<String> skus = candidates.stream()
+                .map(r -> r.sku)
+                .filter(Objects::nonNull)
+                .filter(skuFilter::mightContain)
+                .collect(Collectors.toSet());
+        Set<String> existingSkus = skus.isEmpty() ? Set.of() : new HashSet<>(productRepository.findExistingSkus(skus));
+        skuFilter.recordFalsePositives(skus.size() - existingSkus.size());
+        Set<Long> categoryIds = categoryRepository.findAllById(
+                        candidates.stream().map(r -> r.product.getCategory().getId()).collect(Collectors.toSet()))
+                .stream().map(Category::getId).collect(Collectors.toSet());
+        Set<Long> supplierIds = supplierRepository.findAllById(
+                        candidates.stream().map(r -> r.supplierId).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream().map(Supplier::getId).collect(Collectors.toSet());
+
+        List<ValidatedRow> insertable = new ArrayList<>();
+        for (ValidatedRow row : candidates) {
+            Long categoryId = row.product.getCategory().getId();
+            if (row.sku != null && existingSkus.contains(row.sku)) {
+                report.addError(row.line, row.sku, "Un produit existe déjà avec le SKU: " + row.sku);
+            } else if (!categoryIds.contains(categoryId)) {
+                report.addError(row.line, row.sku, "Catégorie non trouvée avec l'ID: " + categoryId);
+            } else if (row.supplierId != null && !supplierIds.contains(row.supplierId)) {
+                report.addError(row.line, row.sku, "Fournisseur non trouvé avec l'ID: " + row.supplierId);
+            } else {
+                insertable.add(row);
+            }
+        }
+        if (insertable.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> ids = allocateIds(insertable.size());
+        Iterator<Long> nextId = ids.iterator();
+        List<Object[]> args = insertable.stream()
+                .map(r -> new Object[] {
+                        nextId.next(),
+                        r.product.getName(),
+                        r.product.getDescription(),
+                        r.product.getPrice(),
+                        r.product.getStock(),
+                        r.sku,
+                        r.product.getCategory().getId(),
+                        r.supplierId,
+                        now,
+                        now
+                })
+                .toList();
+        int[] counts = jdbcTemplate.batchUpdate(INSERT_SQL, args);
+        List<Long> insertedIds = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            ValidatedRow row = insertable.get(i);
+            if (counts[i] == 0) {
+                // Inserted concurrently by another request between the SKU check and the insert.
+                report.addError(row.line, row.sku, "Un produit existe déjà avec le SKU: " + row.sku);
+            } else {
+                report.addImported(1);
+                insertedIds.add(ids.get(i));
+                skuFilter.add(row.sku);
+            }
+        }
+        productChangeFeed.recordUpserts(insertedIds);
+    }
+
+    /**
+     * Reserves ids the same way Hibernate's pooled optimizer does: each nextval() value v owns
+     * the block (v - 49 .. v), so JDBC inserts and entity inserts never collide.
+     */
+    private List<Long> allocateIds(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            int blocks = (count - ids.size() + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+            for (Long hi : jdbcTemplate.queryForList(NEXT_ID_BLOCKS_SQL, Long.class, blocks)) {
+                for (long id = Math.max(1, hi - ID_BLOCK_SIZE + 1); id <= hi && ids.size() < count; id++) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private ValidatedRow validate(ParsedRow parsed) {
+        ProductImportRow row = parsed.row;
+        String sku = row.getSku() != null && !row.getSku().isBlank() ? row.getSku().trim() : null;
+        if (row.getCategoryId() == null) {
+            return ValidatedRow.error(parsed.line, sku, "categoryId est obligatoire");
+        }
+        Category category = new Category();
+        category.setId(row.getCategoryId());
+        Product product = new Product();
+        product.setName(row.getName());
+        product.setDescription(row.getDescription());
+        product.setPrice(row.getPrice());
+        product.setStock(row.getStock() != null ? row.getStock() : 0);
+        product.setSku(sku);
+        product.setCategory(category);
+
+        Set<ConstraintViolation<Product>> violations = validator.validate(product);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            return ValidatedRow.error(parsed.line, sku, message);
+        }
+        return new ValidatedRow(parsed.line, sku, product, row.getSupplierId(), null);
+    }
+
+    private ProductImportRow parseJson(String line) {
+        try {
+            return rowReader.readValue(line);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Ligne JSON invalide: " + ex.getOriginalMessage());
+        }
+    }
+
+    private ProductImportRow toRow(String[] header, List<String> values) {
+        if (values.size() != header.length) {
+            throw new IllegalArgumentException(
+                    "Nombre de colonnes invalide: attendu " + header.length + ", reçu " + values.size());
+        }
+        Map<String, String> byColumn = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            String value = values.get(i).trim();
+            byColumn.put(header[i], value.isEmpty() ? null : value);
+        }
+        ProductImportRow row = new ProductImportRow();
+        row.setName(byColumn.get("name"));
+        row.setDescription(byColumn.get("description"));
+        row.setSku(byColumn.get("sku"));
+        try {
+            row.setPrice(byColumn.get("price") != null ? new BigDecimal(byColumn.get("price")) : null);
+            row.setStock(byColumn.get("stock") != null ? Integer.valueOf(byColumn.get("stock")) : null);
+            row.setCategoryId(byColumn.get("categoryId") != null ? Long.valueOf(byColumn.get("categoryId")) : null);
+            row.setSupplierId(byColumn.get("supplierId") != null ? Long.valueOf(byColumn.get("supplierId")) : null);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Valeur numérique invalide: " + ex.getMessage());
+        }
+        return row;
+    }
+
+    /**
+     * Splits one CSV record (RFC 4180 quoting, records on a single line).
+     */
+    private List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Guillemet non fermé dans la ligne CSV");
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static final class ParsedRow {
+        private final long line;
+        private final ProductImportRow row;
+
+        private ParsedRow(long line, ProductImportRow row) {
+            this.line = line;
+            this.row = row;
+        }
+    }
+
+    private static final class ValidatedRow {
+        private final long line;
+        private final String sku;
+        private final Product product;
+        private final Long supplierId;
+        private final String error;
+
+        private ValidatedRow(long line, String sku, Product product, Long supplierId, String error) {
+            this.line = line;
+            this.sku = sku;
+            this.product = product;
+            this.supplierId = supplierId;
+            this.error = error;
+        }
+
+        private static ValidatedRow error(long line, String sku, String error) {
+            return new ValidatedRow(line, sku, null, null, error);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.formation.products.service;
+
+import com.formation.products.model.Product;
+import com.formation.products.repository.ProductRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class ProductSearchService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final ProductRepository productRepository;
+
+    public ProductSearchService(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Searches products by name, description and SKU using the full-text and trigram indexes.
+     * A ranked page of ids is selected first, then only those products are hydrated with their
+     * category and supplier, preserving the relevance order.
+     */
+    @Transactional(readOnly = true)
+    public Page<Product> search(String query, int page, int size) {
+        if (query == null || query.trim().isEmpty()) {
+            throw new IllegalArgumentException("Le paramètre de recherche q est obligatoire");
+        }
+        String trimmed = query.trim();
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+        Page<Long> ids = productRepository.searchIds(trimmed, escapeLikePattern(trimmed), pageRequest);
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), pageRequest, ids.getTotalElements());
+        }
+
+        Map<Long, Integer> rankById = new HashMap<>();
+        List<Long> rankedIds = ids.getContent();
+        for (int i = 0; i < rankedIds.size(); i++) {
+            rankById.put(rankedIds.get(i), i);
+        }
+        List<Product> products = productRepository.findByIdInWithCategoryAndSupplier(rankedIds).stream()
+                .sorted(Comparator.comparing(p -> rankById.get(p.getId())))
+                .toList();
+        return new PageImpl<>(products, pageRequest, ids.getTotalElements());
+    }
+
+    private String escapeLikePattern(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -1,9 +1,15 @@
 package com.formation.products.service;
 
+import com.formation.products.dto.CursorPage;
+import com.formation.products.dto.KeysetCursor;
+import com.formation.products.dto.ProductBatch;
+import com.formation.products.dto.ProductFilter;
+import com.formation.products.dto.ProductSummary;
 import com.formation.products.exception.CategoryNotFoundException;
 import com.formation.products.exception.DuplicateProductException;
 import com.formation.products.exception.InsufficientStockException;
 import com.formation.products.exception.ProductNotFoundException;
+import com.formation.products.exception.ProductVersionConflictException;
 import com.formation.products.exception.SupplierNotFoundException;
 import com.formation.products.model.Category;
 import com.formation.products.model.Product;
@@ -11,43 +17,264 @@ import com.formation.products.model.Supplier;
 import com.formation.products.repository.CategoryRepository;
 import com.formation.products.repository.ProductRepository;
 import com.formation.products.repository.SupplierRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProductService {
 
+    private static final int MAX_CURSOR_LIMIT = 100;
+    private static final int MAX_FILTER_PAGE_SIZE = 100;
+    private static final int MAX_BATCH_IDS = 500;
+    private static final int EXPORT_CHUNK_SIZE = 500;
+    private static final SparseProjection PRODUCT_PROJECTION = productProjection();
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final SupplierRepository supplierRepository;
+    private final EntityManager entityManager;
+    private final ProductCache productCache;
+    private final CatalogVersion catalogVersion;
+    private final HotInventory hotInventory;
+    private final TransactionTemplate transactionTemplate;
+    private final PriceIndex priceIndex;
+    private final CatalogSnapshot catalogSnapshot;
+    private final ProductChangeFeed productChangeFeed;
+    private final SkuFilter skuFilter;
+    private final ProductFilterQuery productFilterQuery;
 
     public ProductService(ProductRepository productRepository,
             CategoryRepository categoryRepository,
-            SupplierRepository supplierRepository) {
+            SupplierRepository supplierRepository,
+            EntityManager entityManager,
+            ProductCache productCache,
+            CatalogVersion catalogVersion,
+            HotInventory hotInventory,
+            TransactionTemplate transactionTemplate,
+            PriceIndex priceIndex,
+            CatalogSnapshot catalogSnapshot,
+            ProductChangeFeed productChangeFeed,
+            SkuFilter skuFilter,
+            ProductFilterQuery productFilterQuery) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
         this.supplierRepository = supplierRepository;
+        this.entityManager = entityManager;
+        this.productCache = productCache;
+        this.catalogVersion = catalogVersion;
+        this.hotInventory = hotInventory;
+        this.transactionTemplate = transactionTemplate;
+        this.priceIndex = priceIndex;
+        this.catalogSnapshot = catalogSnapshot;
+        this.productChangeFeed = productChangeFeed;
+        this.skuFilter = skuFilter;
+        this.productFilterQuery = productFilterQuery;
+    }
+
+    /**
+     * ETag value of product listings: the snapshot's tag when listings are served from the
+     * catalog snapshot, the catalog version otherwise.
+     */
+    public String getProductsTag() {
+        return catalogSnapshot.current()
+                .map(CatalogSnapshot.Snapshot::getProductsTag)
+                .orElseGet(catalogVersion::productsTag);
+    }
+
+    /**
+     * Part of product ETags, see {@link CatalogVersion#categoriesVersion()}.
+     */
+    public long getCategoriesVersion() {
+        return catalogVersion.categoriesVersion();
+    }
+
+    /**
+     * Listing reads below are not transactional on purpose: when served from the catalog
+     * snapshot they must not borrow a database connection.
+     */
+    public List<ProductSummary> getAllProducts() {
+        return catalogSnapshot.current()
+                .map(CatalogSnapshot.Snapshot::getProducts)
+                .orElseGet(productRepository::findAllSummaries);
+    }
+
+    /**
+     * Returns a paginated list of product summaries ordered by creation date descending.
+     */
+    public Page<ProductSummary> getAllProducts(int page, int size) {
+        PageRequest pageRequest = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
+        return catalogSnapshot.current()
+                .map(snapshot -> snapshot.getProducts(pageRequest))
+                .orElseGet(() -> productRepository.findSummaries(pageRequest));
+    }
+
+    /**
+     * Returns one keyset page ordered by (createdAt, id) descending, starting after the given cursor.
+     * The seek predicate is served by the (created_at, id) index and no count query is issued,
+     * so latency does not depend on how deep the client has paged.
+     */
+    public CursorPage<ProductSummary> getProductsAfter(String after, int limit) {
+        int resolvedLimit = Math.max(1, Math.min(limit, MAX_CURSOR_LIMIT));
+        KeysetCursor cursor = after == null || after.isBlank() ? null : KeysetCursor.decode(after);
+        List<ProductSummary> rows = catalogSnapshot.current()
+                .map(snapshot -> snapshot.getProductsAfter(cursor, resolvedLimit + 1))
+                .orElseGet(() -> findKeysetPage(cursor, PageRequest.of(0, resolvedLimit + 1)));
+
+        if (rows.size() <= resolvedLimit) {
+            return new CursorPage<>(rows, resolvedLimit, null);
+        }
+        List<ProductSummary> content = rows.subList(0, resolvedLimit);
+        ProductSummary last = content.get(content.size() - 1);
+        String nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+        return new CursorPage<>(content, resolvedLimit, nextCursor);
     }
 
+    private List<ProductSummary> findKeysetPage(KeysetCursor cursor, PageRequest probe) {
+        return cursor == null
+                ? productRepository.findFirstKeysetPage(probe)
+                : productRepository.findKeysetPageAfter(cursor.getTimestamp(), cursor.getId(), probe);
+    }
+
+    /**
+     * Returns products priced within [min, max], ordered by price then id. The page of ids comes
+     * from the in-memory price index and only that page is loaded from the database; falls back
+     * to a sorted query while the index is not available.
+     */
     @Transactional(readOnly = true)
-    public List<Product> getAllProducts() {
-        return productRepository.findAllWithCategoryAndSupplier();
+    public Page<Product> getProductsByPriceRange(BigDecimal min, BigDecimal max, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(page, size);
+        if (!priceIndex.isReady()) {
+            return productRepository.findByPriceBetween(min, max, pageRequest);
+        }
+        List<Long> ids = priceIndex.findIdsInRange(min, max, (int) pageRequest.getOffset(), size);
+        return new PageImpl<>(getProductsInOrder(ids), pageRequest, priceIndex.countInRange(min, max));
     }
 
     /**
-     * Returns a paginated list of products ordered by creation date descending.
-     * Uses the "Product.full" entity graph to preload related category and supplier.
+     * Loads the given products with one IN query and returns them in the order of the ids.
+     * Ids of products deleted in the meantime are skipped.
      */
     @Transactional(readOnly = true)
-    public Page<Product> getAllProducts(int page, int size) {
-        PageRequest pageRequest = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        return productRepository.findAll(pageRequest);
+    public List<Product> getProductsInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> positions = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            positions.putIfAbsent(ids.get(i), i);
+        }
+        return productRepository.findByIdInWithCategoryAndSupplier(ids).stream()
+                .sorted(Comparator.comparing(p -> positions.get(p.getId())))
+                .toList();
+    }
+
+    /**
+     * Sparse variant of the product listing: only the requested fields (?fields=) and relations
+     * (?expand=category,supplier) are selected, joined and serialized.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getProductFields(String fields, String expand, Long categoryId, String categoryName) {
+        SparseProjection.Selection selection = PRODUCT_PROJECTION.select(fields, expand);
+        String where = null;
+        if (categoryId != null) {
+            where = "p.category.id = :categoryId";
+        } else if (categoryName != null && !categoryName.trim().isEmpty()) {
+            where = "p.category.id IN (SELECT cat.id FROM Category cat WHERE cat.name = :categoryName)";
+        }
+        TypedQuery<Tuple> query = entityManager.createQuery(selection.query(where, "p.createdAt DESC"), Tuple.class);
+        if (categoryId != null) {
+            query.setParameter("categoryId", categoryId);
+        } else if (where != null) {
+            query.setParameter("categoryName", categoryName);
+        }
+        return query.getResultList().stream().map(selection::toMap).toList();
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getProductFields(String fields, String expand, int page, int size) {
+        SparseProjection.Selection selection = PRODUCT_PROJECTION.select(fields, expand);
+        PageRequest pageRequest = PageRequest.of(page, size);
+        List<Map<String, Object>> content = entityManager
+                .createQuery(selection.query(null, "p.createdAt DESC, p.id DESC"), Tuple.class)
+                .setFirstResult((int) pageRequest.getOffset())
+                .setMaxResults(size)
+                .getResultList().stream()
+                .map(selection::toMap)
+                .toList();
+        long total = entityManager.createQuery("SELECT COUNT(p) FROM Product p", Long.class).getSingleResult();
+        return new PageImpl<>(content, pageRequest, total);
+    }
+
+    /**
+     * Sparse variant of the keyset listing. The cursor columns are always selected but only
+     * serialized when requested.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Map<String, Object>> getProductFieldsAfter(String fields, String expand, String after, int limit) {
+        SparseProjection.Selection selection = PRODUCT_PROJECTION.select(fields, expand);
+        int resolvedLimit = Math.max(1, Math.min(limit, MAX_CURSOR_LIMIT));
+        KeysetCursor cursor = after == null || after.isBlank() ? null : KeysetCursor.decode(after);
+        String where = cursor == null ? null : "p.createdAt <= :createdAt AND (p.createdAt < :createdAt OR p.id < :id)";
+        TypedQuery<Tuple> query = entityManager
+                .createQuery(selection.query(where, "p.createdAt DESC, p.id DESC", "p.createdAt", "p.id"), Tuple.class)
+                .setMaxResults(resolvedLimit + 1);
+        if (cursor != null) {
+            query.setParameter("createdAt", cursor.getTimestamp());
+            query.setParameter("id", cursor.getId());
+        }
+        List<Tuple> rows = query.getResultList();
+        List<Tuple> pageRows = rows.size() > resolvedLimit ? rows.subList(0, resolvedLimit) : rows;
+        String nextCursor = null;
+        if (rows.size() > resolvedLimit) {
+            Tuple last = pageRows.get(pageRows.size() - 1);
+            nextCursor = new KeysetCursor(last.get("extra0", LocalDateTime.class), last.get("extra1", Long.class)).encode();
+        }
+        return new CursorPage<>(pageRows.stream().map(selection::toMap).toList(), resolvedLimit, nextCursor);
+    }
+
+    /**
+     * Streams the whole catalog to the given consumer row by row, using a JDBC fetch size so the
+     * driver never materializes the full result set. The persistence context is cleared every
+     * chunk, keeping memory usage constant regardless of catalog size.
+     */
+    @Transactional(readOnly = true)
+    public void exportProducts(Consumer<Product> consumer) {
+        try (Stream<Product> products = productRepository.streamAllWithCategoryAndSupplier()) {
+            int count = 0;
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                if (++count % EXPORT_CHUNK_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
     }
 
     @Transactional(readOnly = true)
@@ -62,9 +289,13 @@ public class ProductService {
         return products;
     }
 
+    /**
+     * Optimized counterpart of getAllProductsSlow: one query with explicit joins, projected
+     * straight into read models instead of managed entities.
+     */
     @Transactional(readOnly = true)
-    public List<Product> getAllProductsFast() {
-        return productRepository.findAllWithCategoryAndSupplier();
+    public List<ProductSummary> getAllProductsFast() {
+        return productRepository.findAllSummaries();
     }
 
     @Transactional(readOnly = true)
@@ -77,21 +308,86 @@ public class ProductService {
         return productRepository.findAllWithFullGraph();
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Returns a product with its category and supplier, served from the product cache when hot.
+     * Not transactional on purpose: a cache hit must not borrow a database connection.
+     */
     public Optional<Product> getProduct(Long id) {
-        return productRepository.findByIdWithCategoryAndSupplier(id);
+        return productCache.get(id, () -> productRepository.findByIdWithCategoryAndSupplier(id))
+                .map(this::withHotStock);
     }
 
-    @Transactional(readOnly = true)
-    public List<Product> getProductsByCategoryId(Long categoryId) {
-        return productRepository.findByCategoryIdWithCategoryAndSupplier(categoryId);
+    /**
+     * Hot products are returned with their in-memory stock, which products.stock (and so the
+     * cached entity) only catches up with at the next flush. Others are returned as is.
+     */
+    public Product withHotStock(Product product) {
+        Integer available = hotInventory.available(product.getId());
+        return available != null && available != product.getStock() ? product.withStock(available) : product;
     }
 
-    @Transactional(readOnly = true)
-    public List<Product> getProductsByCategoryName(String categoryName) {
-        return categoryRepository.findByName(categoryName)
-                .map(productRepository::findByCategoryWithCategoryAndSupplier)
-                .orElse(List.of());
+    /**
+     * Multi-get: cached products are used as is and all the others are loaded with one IN query,
+     * then cached. Products come back in request order without duplicates; ids that do not exist
+     * are reported separately. Not transactional either, for the same reason as getProduct.
+     */
+    public ProductBatch getProducts(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("At least one id is required");
+        }
+        if (ids.contains(null)) {
+            throw new IllegalArgumentException("ids must not contain null");
+        }
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        if (distinctIds.size() > MAX_BATCH_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_IDS + " ids can be requested at once");
+        }
+        Map<Long, Product> found = productCache.getAll(distinctIds, missing ->
+                productRepository.findByIdInWithCategoryAndSupplier(new ArrayList<>(missing)).stream()
+                        .collect(Collectors.toMap(Product::getId, Function.identity())));
+        List<Product> products = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : distinctIds) {
+            Product product = found.get(id);
+            if (product != null) {
+                products.add(product);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new ProductBatch(products, missingIds);
+    }
+
+    /**
+     * Returns only the optimistic-lock version of a product (used as its ETag), from the cache
+     * when present, otherwise with a primary-key lookup that does not hydrate the entity.
+     */
+    public Optional<Long> getProductVersion(Long id) {
+        return productCache.peek(id)
+                .map(Product::getVersion)
+                .or(() -> productRepository.findVersionById(id));
+    }
+
+    public List<ProductSummary> getProductsByCategoryId(Long categoryId) {
+        return catalogSnapshot.current()
+                .map(snapshot -> snapshot.getProductsByCategoryId(categoryId))
+                .orElseGet(() -> productRepository.findSummariesByCategoryId(categoryId));
+    }
+
+    public List<ProductSummary> getProductsByCategoryName(String categoryName) {
+        return catalogSnapshot.current()
+                .map(snapshot -> snapshot.getProductsByCategoryName(categoryName))
+                .orElseGet(() -> productRepository.findSummariesByCategoryName(categoryName));
+    }
+
+    /**
+     * Returns a page of product summaries matching every given filter, newest first.
+     */
+    public Page<ProductSummary> getProducts(ProductFilter filter, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, MAX_FILTER_PAGE_SIZE)));
+        return catalogSnapshot.current()
+                .map(snapshot -> snapshot.getProducts(filter, pageRequest))
+                .orElseGet(() -> productFilterQuery.find(filter, pageRequest));
     }
 
     /**
@@ -102,11 +398,12 @@ public class ProductService {
     public Product createProduct(Product product) {
         String normalizedSku = normalizeSku(product.getSku());
         product.setSku(normalizedSku);
-        if (normalizedSku != null && productRepository.existsBySku(normalizedSku)) {
+        if (isSkuTaken(normalizedSku, null)) {
             throw new DuplicateProductException(normalizedSku);
         }
         normalizeRelations(product);
-        Product created = productRepository.save(product);
+        Product created = saveWithUniqueSku(product);
+        productChangeFeed.recordUpsert(created.getId());
         return productRepository.findByIdWithCategoryAndSupplier(created.getId()).orElse(created);
     }
 
@@ -114,14 +411,18 @@ public class ProductService {
     public Product createProductWithCategory(Product product, String categoryName) {
         String normalizedSku = normalizeSku(product.getSku());
         product.setSku(normalizedSku);
-        if (normalizedSku != null && productRepository.existsBySku(normalizedSku)) {
+        if (isSkuTaken(normalizedSku, null)) {
             throw new DuplicateProductException(normalizedSku);
         }
         Category category = categoryRepository.findByName(categoryName)
-                .orElseGet(() -> categoryRepository.save(new Category(categoryName, null)));
+                .orElseGet(() -> {
+                    catalogVersion.categoriesChanged();
+                    return categoryRepository.save(new Category(categoryName, null));
+                });
         product.setCategory(category);
         normalizeSupplier(product);
-        Product created = productRepository.save(product);
+        Product created = saveWithUniqueSku(product);
+        productChangeFeed.recordUpsert(created.getId());
         return productRepository.findByIdWithCategoryAndSupplier(created.getId()).orElse(created);
     }
 
@@ -133,8 +434,13 @@ public class ProductService {
     public Product updateProduct(Long id, Product updatedProduct) {
         Product existing = productRepository.findById(id)
                 .orElseThrow(() -> new ProductNotFoundException(id));
+        // Version check against the client's copy; concurrent flushes are caught by @Version itself.
+        if (updatedProduct.getVersion() != null && !updatedProduct.getVersion().equals(existing.getVersion())) {
+            throw new ProductVersionConflictException(id, updatedProduct.getVersion(), existing.getVersion());
+        }
         String normalizedSku = normalizeSku(updatedProduct.getSku());
-        if (normalizedSku != null && productRepository.existsBySkuAndIdNot(normalizedSku, id)) {
+        // The unique constraint guarantees nobody else holds the product's current SKU.
+        if (!Objects.equals(normalizedSku, existing.getSku()) && isSkuTaken(normalizedSku, id)) {
             throw new DuplicateProductException(normalizedSku);
         }
         Category resolvedCategory = resolveCategory(updatedProduct);
@@ -144,12 +450,18 @@ public class ProductService {
         existing.setName(updatedProduct.getName());
         existing.setDescription(updatedProduct.getDescription());
         existing.setPrice(updatedProduct.getPrice());
-        existing.setStock(updatedProduct.getStock());
+        if (hotInventory.isHot(id)) {
+            hotInventory.setStockAfterCommit(id, updatedProduct.getStock());
+        } else {
+            existing.setStock(updatedProduct.getStock());
+        }
         existing.setSku(normalizedSku);
         existing.setCategory(resolvedCategory);
         existing.setSupplier(resolvedSupplier);
 
-        Product saved = productRepository.save(existing);
+        Product saved = saveWithUniqueSku(existing);
+        productCache.evict(id);
+        productChangeFeed.recordUpsert(id);
         return productRepository.findByIdWithCategoryAndSupplier(saved.getId()).orElse(saved);
     }
 
@@ -159,47 +471,52 @@ public class ProductService {
             throw new ProductNotFoundException(id);
         }
         productRepository.deleteById(id);
+        productCache.evict(id);
+        catalogSnapshot.removeAfterCommit(id);
+        productChangeFeed.recordDelete(id);
     }
 
-    @Transactional
-    public void updateStock(Long id, int quantity) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ProductNotFoundException(id));
-        int newStock = product.getStock() + quantity;
-        if (newStock < 0) {
-            throw new InsufficientStockException(product.getName(), Math.abs(quantity), product.getStock());
+    /**
+     * Adjusts stock by a signed quantity with a single conditional UPDATE and returns the new stock.
+     * No row is read beforehand, so concurrent adjustments neither lose updates nor hold a lock
+     * longer than the statement itself. Hot-inventory products are adjusted in memory, without
+     * opening a transaction.
+     */
+    public int updateStock(Long id, int quantity) {
+        if (hotInventory.isHot(id)) {
+            return hotInventory.adjust(id, quantity);
         }
-        product.setStock(newStock);
-        productRepository.save(product);
+        return transactionTemplate.execute(status -> adjustStockInDatabase(id, quantity, Math.abs(quantity)));
     }
 
     /**
      * Decreases stock for a product and fails fast when the available quantity is insufficient.
      */
-    @Transactional
-    public void decreaseStock(Long productId, int quantity) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ProductNotFoundException(productId));
-        if (product.getStock() < quantity) {
-            throw new InsufficientStockException(product.getName(), quantity, product.getStock());
+    public int decreaseStock(Long productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be >= 1");
         }
-        product.setStock(product.getStock() - quantity);
+        if (hotInventory.isHot(productId)) {
+            return hotInventory.adjust(productId, -quantity);
+        }
+        return transactionTemplate.execute(status -> adjustStockInDatabase(productId, -quantity, quantity));
+    }
+
+    private int adjustStockInDatabase(Long id, int delta, int requested) {
+        int newStock = productRepository.adjustStock(id, delta, LocalDateTime.now())
+                .orElseThrow(() -> stockAdjustmentFailure(id, requested));
+        productCache.evict(id);
+        productChangeFeed.recordUpsert(id);
+        return newStock;
     }
 
     /**
-     * Transfers every product from one category to another in a single transaction.
+     * Explains why a conditional stock update matched no row: unknown product or not enough stock.
      */
-    @Transactional
-    public void transferProducts(Long fromCategoryId, Long toCategoryId) {
-        Category from = categoryRepository.findById(fromCategoryId)
-                .orElseThrow(() -> new IllegalArgumentException("Category not found: " + fromCategoryId));
-        Category to = categoryRepository.findById(toCategoryId)
-                .orElseThrow(() -> new IllegalArgumentException("Category not found: " + toCategoryId));
-        List<Product> products = productRepository.findByCategory(from);
-        for (Product product : products) {
-            product.setCategory(to);
-            productRepository.save(product);
-        }
+    private RuntimeException stockAdjustmentFailure(Long id, int requested) {
+        return productRepository.findById(id)
+                .<RuntimeException>map(p -> new InsufficientStockException(p.getName(), requested, p.getStock()))
+                .orElseGet(() -> new ProductNotFoundException(id));
     }
 
     @Transactional
@@ -222,6 +539,42 @@ public class ProductService {
         product.setSupplier(resolveSupplier(product));
     }
 
+    /**
+     * True when another product holds the SKU. SKUs the filter has never seen are answered
+     * without a query.
+     */
+    private boolean isSkuTaken(String sku, Long excludedId) {
+        if (sku == null || !skuFilter.mightContain(sku)) {
+            return false;
+        }
+        boolean taken = excludedId == null
+                ? productRepository.existsBySku(sku)
+                : productRepository.existsBySkuAndIdNot(sku, excludedId);
+        if (!taken) {
+            skuFilter.recordFalsePositives(1);
+        }
+        return taken;
+    }
+
+    /**
+     * Flushes the product so that a SKU taken concurrently, or by another instance the SKU filter
+     * has not seen yet, surfaces here as a duplicate instead of failing at commit.
+     */
+    private Product saveWithUniqueSku(Product product) {
+        Product saved;
+        try {
+            saved = productRepository.saveAndFlush(product);
+        } catch (DataIntegrityViolationException ex) {
+            String cause = ex.getMostSpecificCause().getMessage();
+            if (product.getSku() != null && cause != null && cause.toLowerCase(Locale.ROOT).contains("sku")) {
+                throw new DuplicateProductException(product.getSku());
+            }
+            throw ex;
+        }
+        skuFilter.add(saved.getSku());
+        return saved;
+    }
+
     private String normalizeSku(String sku) {
         if (sku == null) {
             return null;
@@ -249,4 +602,32 @@ public class ProductService {
         return supplierRepository.findById(supplierId)
                 .orElseThrow(() -> new SupplierNotFoundException(supplierId));
     }
+
+    private static SparseProjection productProjection() {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("id", "p.id");
+        fields.put("name", "p.name");
+        fields.put("description", "p.description");
+        fields.put("price", "p.price");
+        fields.put("stock", "p.stock");
+        fields.put("sku", "p.sku");
+        fields.put("version", "p.version");
+        fields.put("createdAt", "p.createdAt");
+        fields.put("updatedAt", "p.updatedAt");
+
+        Map<String, String> categoryFields = new LinkedHashMap<>();
+        categoryFields.put("id", "c.id");
+        categoryFields.put("name", "c.name");
+        categoryFields.put("description", "c.description");
+        Map<String, String> supplierFields = new LinkedHashMap<>();
+        supplierFields.put("id", "s.id");
+        supplierFields.put("name", "s.name");
+        supplierFields.put("email", "s.email");
+        supplierFields.put("phone", "s.phone");
+
+        Map<String, SparseProjection.Expansion> expansions = new LinkedHashMap<>();
+        expansions.put("category", new SparseProjection.Expansion("LEFT JOIN p.category c", "c.id", categoryFields));
+        expansions.put("supplier", new SparseProjection.Expansion("LEFT JOIN p.supplier s", "s.id", supplierFields));
+        return new SparseProjection("Product p", fields, expansions);
+    }
 }
@@ -0,0 +1,299 @@
+package com.formation.products.service;
+
+import com.formation.products.dto.StockAdjustment;
+import com.formation.products.dto.StockAdjustmentResult;
+import com.formation.products.dto.StockAdjustmentResult.Status;
+import com.formation.products.exception.InsufficientStockException;
+import com.formation.products.exception.OrderStockException;
+import com.formation.products.exception.OrderStockException.Shortage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+@Service
+public class ProductStockService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductStockService.class);
+
+    /** Rows per UPDATE statement; keeps bind parameters well below the driver limit. */
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final String RESERVE_SQL =
+            "UPDATE products SET stock = stock - ?, version = version + 1, updated_at = ? WHERE id = ? AND stock >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductCache productCache;
+    private final HotInventory hotInventory;
+    private final ProductChangeFeed productChangeFeed;
+
+    public ProductStockService(JdbcTemplate jdbcTemplate,
+                               ProductCache productCache,
+                               HotInventory hotInventory,
+                               ProductChangeFeed productChangeFeed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productCache = productCache;
+        this.hotInventory = hotInventory;
+        this.productChangeFeed = productChangeFeed;
+    }
+
+    /**
+     * Applies many stock deltas in one transaction with set-based
+     * {@code UPDATE ... FROM (VALUES ...)} statements. Deltas for the same id are summed first.
+     * Rows whose stock would become negative are left untouched and reported, the others are
+     * applied; results are returned in request order.
+     * Rows are locked and updated in ascending id order, like order reservations, so concurrent
+     * batches and orders sharing products cannot deadlock.
+     */
+    @Transactional
+    public List<StockAdjustmentResult> adjustStocks(List<StockAdjustment> adjustments) {
+        if (adjustments == null || adjustments.isEmpty()) {
+            throw new IllegalArgumentException("At least one stock adjustment is required");
+        }
+        Map<Long, Integer> netDeltas = new LinkedHashMap<>();
+        for (StockAdjustment adjustment : adjustments) {
+            if (adjustment.getId() == null) {
+                throw new IllegalArgumentException("id is required for every stock adjustment");
+            }
+            netDeltas.merge(adjustment.getId(), adjustment.getDelta(), Integer::sum);
+        }
+
+        Map<Long, Integer> updatedStocks = new HashMap<>();
+        Map<Long, Integer> rejectedStocks = new HashMap<>();
+        Map<Long, Integer> databaseDeltas = new TreeMap<>();
+        Map<Long, Integer> hotApplied = new LinkedHashMap<>();
+        netDeltas.forEach((id, delta) -> {
+            if (!hotInventory.isHot(id)) {
+                databaseDeltas.put(id, delta);
+                return;
+            }
+            try {
+                updatedStocks.put(id, hotInventory.adjust(id, delta));
+                hotApplied.put(id, delta);
+            } catch (InsufficientStockException ex) {
+                rejectedStocks.put(id, hotInventory.available(id));
+            }
+        });
+        releaseOnRollback(hotApplied);
+
+        List<Map.Entry<Long, Integer>> entries = new ArrayList<>(databaseDeltas.entrySet());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Map<Long, Integer> databaseStocks = new HashMap<>();
+        for (int from = 0; from < entries.size(); from += CHUNK_SIZE) {
+            databaseStocks.putAll(applyChunk(entries.subList(from, Math.min(from + CHUNK_SIZE, entries.size())), now));
+        }
+        // Hot products reach the database, and the change feed, on their next flush.
+        productChangeFeed.recordUpserts(databaseStocks.keySet());
+        updatedStocks.putAll(databaseStocks);
+
+        List<Long> missing = databaseDeltas.keySet().stream()
+                .filter(id -> !updatedStocks.containsKey(id))
+                .toList();
+        rejectedStocks.putAll(currentStocks(missing));
+        updatedStocks.keySet().forEach(productCache::evict);
+
+        return adjustments.stream()
+                .map(a -> toResult(a, updatedStocks, rejectedStocks))
+                .toList();
+    }
+
+    /**
+     * Reserves stock for every line of an order in the caller's transaction, all or nothing.
+     * The rows of database products are locked in ascending id order and their stock checked
+     * first; they are only decremented, in one JDBC batch, once every line is known to fit, so a
+     * rejected order writes nothing. Locking in id order means concurrent orders sharing
+     * products cannot deadlock. Hot products are reserved in memory and released if the order
+     * is rejected or the transaction rolls back.
+     * Deliberately not @Transactional: a rejection must not mark the caller's transaction
+     * rollback-only (see OrderIngestionService).
+     */
+    public void reserve(Map<Long, Integer> quantities) {
+        Map<Long, Integer> sorted = new TreeMap<>(quantities);
+        List<Long> databaseIds = sorted.keySet().stream().filter(id -> !hotInventory.isHot(id)).toList();
+        Map<Long, String> names = new HashMap<>();
+        Map<Long, Integer> stocks = new HashMap<>();
+        lockStocks(databaseIds, names, stocks);
+
+        List<Shortage> shortages = new ArrayList<>();
+        for (Long id : databaseIds) {
+            if (!stocks.containsKey(id)) {
+                throw new IllegalArgumentException("Product not found with id " + id);
+            }
+            if (stocks.get(id) < sorted.get(id)) {
+                shortages.add(new Shortage(id, names.get(id), sorted.get(id), stocks.get(id)));
+            }
+        }
+        Map<Long, Integer> hotReserved = new LinkedHashMap<>();
+        List<Long> hotShort = new ArrayList<>();
+        sorted.forEach((id, quantity) -> {
+            if (!hotInventory.isHot(id)) {
+                return;
+            }
+            try {
+                hotInventory.adjust(id, -quantity);
+                hotReserved.put(id, -quantity);
+            } catch (InsufficientStockException ex) {
+                hotShort.add(id);
+            }
+        });
+        if (!shortages.isEmpty() || !hotShort.isEmpty()) {
+            hotReserved.forEach((id, delta) -> hotInventory.adjust(id, -delta));
+            Map<Long, String> hotNames = productNames(hotShort);
+            for (Long id : hotShort) {
+                shortages.add(new Shortage(id, hotNames.get(id), sorted.get(id), hotInventory.available(id)));
+            }
+            shortages.sort((a, b) -> a.getProductId().compareTo(b.getProductId()));
+            throw new OrderStockException(shortages);
+        }
+        releaseOnRollback(hotReserved);
+
+        if (databaseIds.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = databaseIds.stream()
+                .map(id -> new Object[] {sorted.get(id), now, id, sorted.get(id)})
+                .toList();
+        int[] counts = jdbcTemplate.batchUpdate(RESERVE_SQL, args);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                // Only possible without a surrounding transaction, when the row locks are not held.
+                throw new IllegalStateException("Stock of product " + databaseIds.get(i) + " changed during reservation");
+            }
+        }
+        productChangeFeed.recordUpserts(databaseIds);
+        databaseIds.forEach(productCache::evict);
+    }
+
+    /**
+     * Locks the given product rows in ascending id order until the caller's transaction ends.
+     * A transaction placing several orders calls it first with all their products, so that
+     * its reservations never lock rows out of order.
+     */
+    public void lockForReservation(Collection<Long> productIds) {
+        lockStocks(productIds, new HashMap<>(), new HashMap<>());
+    }
+
+    /**
+     * Locks the rows with SELECT ... ORDER BY id FOR UPDATE, in chunks, and reads their name and
+     * stock; ids absent from the maps do not exist.
+     */
+    private void lockStocks(Collection<Long> productIds, Map<Long, String> names, Map<Long, Integer> stocks) {
+        List<Long> ids = new ArrayList<>(new TreeSet<>(productIds));
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()));
+            String placeholders = chunk.stream().map(id -> "?").collect(Collectors.joining(","));
+            jdbcTemplate.query("SELECT id, name, stock FROM products WHERE id IN (" + placeholders + ") ORDER BY id FOR UPDATE",
+                    rs -> {
+                        names.put(rs.getLong(1), rs.getString(2));
+                        stocks.put(rs.getLong(1), rs.getInt(3));
+                    }, chunk.toArray());
+        }
+    }
+
+    private Map<Long, String> productNames(List<Long> ids) {
+        Map<Long, String> names = new HashMap<>();
+        if (ids.isEmpty()) {
+            return names;
+        }
+        String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(","));
+        jdbcTemplate.query("SELECT id, name FROM products WHERE id IN (" + placeholders + ")", rs -> {
+            names.put(rs.getLong(1), rs.getString(2));
+        }, ids.toArray());
+        return names;
+    }
+
+    /**
+     * Reverts hot inventory deltas already applied in memory if the transaction rolls back.
+     * A restock that was already consumed in the meantime cannot be taken back and is logged.
+     */
+    private void releaseOnRollback(Map<Long, Integer> hotDeltas) {
+        if (hotDeltas.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    hotDeltas.forEach((id, delta) -> {
+                        try {
+                            hotInventory.adjust(id, -delta);
+                        } catch (InsufficientStockException ex) {
+                            log.warn("Could not revert hot stock delta {} of product {} after rollback", delta, id);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * The chunk is sorted by id. Its rows are locked in that order first: the row order of
+     * UPDATE ... FROM (VALUES ...) depends on the join plan.
+     */
+    private Map<Long, Integer> applyChunk(List<Map.Entry<Long, Integer>> chunk, Timestamp now) {
+        lockForReservation(chunk.stream().map(Map.Entry::getKey).toList());
+        String values = chunk.stream().map(e -> "(?::bigint, ?::int)").collect(Collectors.joining(", "));
+        String sql = """
+                UPDATE products p
+                SET stock = p.stock + v.delta, version = p.version + 1, updated_at = ?
+                FROM (VALUES %s) AS v(id, delta)
+                WHERE p.id = v.id AND p.stock + v.delta >= 0
+                RETURNING p.id, p.stock
+                """.formatted(values);
+        List<Object> args = new ArrayList<>(chunk.size() * 2 + 1);
+        args.add(now);
+        for (Map.Entry<Long, Integer> entry : chunk) {
+            args.add(entry.getKey());
+            args.add(entry.getValue());
+        }
+        Map<Long, Integer> stocks = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            stocks.put(rs.getLong(1), rs.getInt(2));
+        }, args.toArray());
+        return stocks;
+    }
+
+    /**
+     * Current stock of products whose update matched no row; ids absent from the result do not exist.
+     */
+    private Map<Long, Integer> currentStocks(List<Long> ids) {
+        Map<Long, Integer> stocks = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()));
+            String placeholders = chunk.stream().map(id -> "?").collect(Collectors.joining(","));
+            jdbcTemplate.query("SELECT id, stock FROM products WHERE id IN (" + placeholders + ")", rs -> {
+                stocks.put(rs.getLong(1), rs.getInt(2));
+            }, chunk.toArray());
+        }
+        return stocks;
+    }
+
+    private StockAdjustmentResult toResult(StockAdjustment adjustment,
+                                           Map<Long, Integer> updatedStocks,
+                                           Map<Long, Integer> rejectedStocks) {
+        Long id = adjustment.getId();
+        if (updatedStocks.containsKey(id)) {
+            return new StockAdjustmentResult(id, adjustment.getDelta(), Status.UPDATED, updatedStocks.get(id));
+        }
+        if (rejectedStocks.containsKey(id)) {
+            return new StockAdjustmentResult(id, adjustment.getDelta(), Status.INSUFFICIENT_STOCK, rejectedStocks.get(id));
+        }
+        return new StockAdjustmentResult(id, adjustment.getDelta(), Status.NOT_FOUND, null);
+    }
+}
@@ -0,0 +1,209 @@
+package com.formation.products.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over every product SKU, used to skip the "SKU already taken?" query when the
+ * SKU is certainly new. A negative answer is definite for SKUs written through this instance;
+ * a positive one only means "maybe", and callers must then ask the database. The unique
+ * constraint on products.sku stays the source of truth: SKUs written by another instance since
+ * the last rebuild are caught there.
+ * Bloom filters cannot forget, so deleted or renamed SKUs linger as false positives until the
+ * periodic rebuild, which also resizes the filter to the catalog. Until the first build (or
+ * when disabled with app.sku-filter.enabled=false) every SKU is reported as possibly present.
+ */
+@Component
+public class SkuFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(SkuFilter.class);
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long MIN_CAPACITY = 100_000;
+
+    private final boolean enabled;
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLong definiteMisses = new AtomicLong();
+    private final AtomicLong possibleHits = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    private volatile Bits bits;
+    /** SKUs added while a rebuild reads the table, replayed into the new filter. Null otherwise. */
+    private volatile Set<String> addedDuringRebuild;
+
+    public SkuFilter(@Value("${app.sku-filter.enabled:true}") boolean enabled, JdbcTemplate jdbcTemplate) {
+        this.enabled = enabled;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the filter from the table, sized for twice the current number of SKUs.
+     */
+    @Scheduled(initialDelayString = "${app.sku-filter.rebuild-interval:3600000}",
+            fixedDelayString = "${app.sku-filter.rebuild-interval:3600000}")
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        Set<String> concurrentAdds = ConcurrentHashMap.newKeySet();
+        addedDuringRebuild = concurrentAdds;
+        try {
+            List<String> skus = jdbcTemplate.queryForList("SELECT sku FROM products WHERE sku IS NOT NULL", String.class);
+            Bits rebuilt = new Bits(Math.max(MIN_CAPACITY, skus.size() * 2L));
+            skus.forEach(rebuilt::add);
+            bits = rebuilt;
+            concurrentAdds.forEach(rebuilt::add);
+            log.info("SKU filter built with {} SKU(s), {} bits", skus.size(), rebuilt.size);
+        } catch (DataAccessException ex) {
+            log.warn("SKU filter rebuild failed, keeping the previous filter", ex);
+        } finally {
+            addedDuringRebuild = null;
+        }
+    }
+
+    /**
+     * False only when the SKU is certainly not in the catalog; true means the database must be asked.
+     */
+    public boolean mightContain(String sku) {
+        Bits current = bits;
+        if (current == null) {
+            return true;
+        }
+        if (current.mightContain(sku)) {
+            possibleHits.incrementAndGet();
+            return true;
+        }
+        definiteMisses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Called with the number of SKUs reported as possibly present that the database did not confirm.
+     */
+    public void recordFalsePositives(int count) {
+        falsePositives.addAndGet(count);
+    }
+
+    /**
+     * Adds a SKU being written. Safe to call before commit: a rolled back SKU only costs a
+     * false positive until the next rebuild.
+     */
+    public void add(String sku) {
+        if (sku == null) {
+            return;
+        }
+        Bits current = bits;
+        if (current != null) {
+            current.add(sku);
+        }
+        Set<String> concurrentAdds = addedDuringRebuild;
+        if (concurrentAdds != null) {
+            concurrentAdds.add(sku);
+        }
+    }
+
+    public void addAll(Collection<String> skus) {
+        skus.forEach(this::add);
+    }
+
+    public Map<String, Object> stats() {
+        Bits current = bits;
+        long misses = definiteMisses.get();
+        long fp = falsePositives.get();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("ready", current != null);
+        result.put("capacity", current != null ? current.capacity : 0);
+        result.put("insertions", current != null ? current.insertions.get() : 0);
+        result.put("bits", current != null ? current.size : 0);
+        result.put("hashFunctions", current != null ? current.hashFunctions : 0);
+        result.put("expectedFalsePositiveRate", FALSE_POSITIVE_RATE);
+        result.put("definiteMisses", misses);
+        result.put("possibleHits", possibleHits.get());
+        result.put("falsePositives", fp);
+        // Share of SKUs absent from the catalog that the filter still reported as possibly present.
+        result.put("observedFalsePositiveRate", misses + fp == 0 ? 0.0 : (double) fp / (misses + fp));
+        return result;
+    }
+
+    /**
+     * Fixed-size bit array with k probes derived from two 64-bit hashes (double hashing).
+     */
+    private static final class Bits {
+        private final long capacity;
+        private final long size;
+        private final int hashFunctions;
+        private final AtomicLongArray words;
+        private final AtomicLong insertions = new AtomicLong();
+
+        private Bits(long capacity) {
+            this.capacity = capacity;
+            long optimalSize = (long) Math.ceil(-capacity * Math.log(FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2)));
+            this.size = Math.max(64, (optimalSize + 63) / 64 * 64);
+            this.hashFunctions = Math.max(1, (int) Math.round((double) size / capacity * Math.log(2)));
+            this.words = new AtomicLongArray((int) (size / 64));
+        }
+
+        private void add(String sku) {
+            for (long index : indexes(sku)) {
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long previous;
+                do {
+                    previous = words.get(word);
+                } while ((previous & mask) == 0 && !words.compareAndSet(word, previous, previous | mask));
+            }
+            insertions.incrementAndGet();
+        }
+
+        private boolean mightContain(String sku) {
+            for (long index : indexes(sku)) {
+                if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long[] indexes(String sku) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < sku.length(); i++) {
+                hash ^= sku.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            long h1 = mix(hash);
+            long h2 = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+            long[] indexes = new long[hashFunctions];
+            for (int i = 0; i < hashFunctions; i++) {
+                indexes[i] = Math.floorMod(h1 + i * h2, size);
+            }
+            return indexes;
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+            z = (z ^ (z >>> 33)) * 0xc4ceb93fe53ef9a3L;
+            return z ^ (z >>> 33);
+        }
+    }
+}
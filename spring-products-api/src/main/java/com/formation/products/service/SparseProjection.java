@@ -0,0 +1,153 @@
+package com.formation.products.service;
+
+import jakarta.persistence.Tuple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sparse fieldsets (?fields=) and selective expansion (?expand=) for read endpoints.
+ * Requested fields become the JPQL select list and each requested to-one expansion adds its
+ * LEFT JOIN, so unrequested columns are neither read from the database nor serialized.
+ * Rows are returned as ordered maps; expanded relations as nested maps (null when absent).
+ */
+final class SparseProjection {
+
+    private final String from;
+    private final Map<String, String> fields;
+    private final Map<String, Expansion> expansions;
+
+    SparseProjection(String from, Map<String, String> fields, Map<String, Expansion> expansions) {
+        this.from = from;
+        this.fields = fields;
+        this.expansions = expansions;
+    }
+
+    /**
+     * Validates the raw query parameters. Without fields, every field is selected; unknown names
+     * are rejected with an IllegalArgumentException.
+     */
+    Selection select(String fieldsParam, String expandParam) {
+        List<String> selectedFields = fieldsParam == null || fieldsParam.isBlank()
+                ? new ArrayList<>(fields.keySet())
+                : parse(fieldsParam, fields.keySet(), "field");
+        List<String> selectedExpansions = parse(expandParam, expansions.keySet(), "expansion");
+        if (selectedFields.isEmpty() && selectedExpansions.isEmpty()) {
+            throw new IllegalArgumentException("At least one field must be selected");
+        }
+        return new Selection(selectedFields, selectedExpansions);
+    }
+
+    /**
+     * Fetches a to-one relation with its own select list, e.g. category -> (c.id, c.name).
+     * Collections would multiply rows: they are declared with {@link #separate()} and loaded by
+     * the caller with a second query keyed by the page ids.
+     */
+    static final class Expansion {
+        private final String join;
+        private final String nullCheckPath;
+        private final Map<String, String> fields;
+
+        Expansion(String join, String nullCheckPath, Map<String, String> fields) {
+            this.join = join;
+            this.nullCheckPath = nullCheckPath;
+            this.fields = fields;
+        }
+
+        static Expansion separate() {
+            return new Expansion(null, null, Map.of());
+        }
+
+        private boolean isJoined() {
+            return join != null;
+        }
+    }
+
+    final class Selection {
+        private final List<String> selectedFields;
+        private final List<String> selectedExpansions;
+
+        private Selection(List<String> selectedFields, List<String> selectedExpansions) {
+            this.selectedFields = selectedFields;
+            this.selectedExpansions = selectedExpansions;
+        }
+
+        boolean isExpanded(String name) {
+            return selectedExpansions.contains(name);
+        }
+
+        /**
+         * Builds the JPQL query. Extra paths (e.g. keyset columns) are selected under the aliases
+         * extra0, extra1... and are not part of the mapped rows.
+         */
+        String query(String where, String orderBy, String... extraPaths) {
+            List<String> select = new ArrayList<>();
+            for (String field : selectedFields) {
+                select.add(fields.get(field) + " AS f__" + field);
+            }
+            StringBuilder joins = new StringBuilder();
+            for (String name : selectedExpansions) {
+                Expansion expansion = expansions.get(name);
+                if (!expansion.isJoined()) {
+                    continue;
+                }
+                joins.append(' ').append(expansion.join);
+                select.add(expansion.nullCheckPath + " AS " + name + "__present");
+                expansion.fields.forEach((field, path) -> select.add(path + " AS " + name + "__" + field));
+            }
+            for (int i = 0; i < extraPaths.length; i++) {
+                select.add(extraPaths[i] + " AS extra" + i);
+            }
+            StringBuilder jpql = new StringBuilder("SELECT ")
+                    .append(String.join(", ", select))
+                    .append(" FROM ").append(from).append(joins);
+            if (where != null && !where.isBlank()) {
+                jpql.append(" WHERE ").append(where);
+            }
+            if (orderBy != null && !orderBy.isBlank()) {
+                jpql.append(" ORDER BY ").append(orderBy);
+            }
+            return jpql.toString();
+        }
+
+        Map<String, Object> toMap(Tuple tuple) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String field : selectedFields) {
+                row.put(field, tuple.get("f__" + field));
+            }
+            for (String name : selectedExpansions) {
+                if (!expansions.get(name).isJoined()) {
+                    continue;
+                }
+                if (tuple.get(name + "__present") == null) {
+                    row.put(name, null);
+                    continue;
+                }
+                Map<String, Object> nested = new LinkedHashMap<>();
+                expansions.get(name).fields.keySet()
+                        .forEach(field -> nested.put(field, tuple.get(name + "__" + field)));
+                row.put(name, nested);
+            }
+            return row;
+        }
+    }
+
+    private static List<String> parse(String param, Set<String> allowed, String kind) {
+        if (param == null || param.isBlank()) {
+            return List.of();
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (String name : Arrays.stream(param.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList()) {
+            if (!allowed.contains(name)) {
+                throw new IllegalArgumentException("Unknown " + kind + " '" + name + "', allowed: " + String.join(",", allowed));
+            }
+            names.add(name);
+        }
+        return new ArrayList<>(names);
+    }
+}
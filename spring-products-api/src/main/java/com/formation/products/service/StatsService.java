@@ -15,6 +15,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class StatsService {
@@ -22,13 +23,28 @@ public class StatsService {
     private final ProductRepository productRepository;
     private final OrderRepository orderRepository;
     private final CategoryRepository categoryRepository;
+    private final ProductCache productCache;
+    private final HotInventory hotInventory;
+    private final PriceIndex priceIndex;
+    private final ProductService productService;
+    private final SkuFilter skuFilter;
 
     public StatsService(ProductRepository productRepository,
                         OrderRepository orderRepository,
-                        CategoryRepository categoryRepository) {
+                        CategoryRepository categoryRepository,
+                        ProductCache productCache,
+                        HotInventory hotInventory,
+                        PriceIndex priceIndex,
+                        ProductService productService,
+                        SkuFilter skuFilter) {
         this.productRepository = productRepository;
         this.orderRepository = orderRepository;
         this.categoryRepository = categoryRepository;
+        this.productCache = productCache;
+        this.hotInventory = hotInventory;
+        this.priceIndex = priceIndex;
+        this.productService = productService;
+        this.skuFilter = skuFilter;
     }
 
     @Transactional(readOnly = true)
@@ -41,9 +57,16 @@ public class StatsService {
         return productRepository.averagePriceByCategory();
     }
 
+    /**
+     * Top N by price, answered from the in-memory price index when loaded: only the N
+     * resulting products are read from the database.
+     */
     @Transactional(readOnly = true)
     public List<Product> getTopExpensive(int limit) {
-        return productRepository.findTopExpensive(PageRequest.of(0, limit));
+        if (!priceIndex.isReady()) {
+            return productRepository.findTopExpensive(PageRequest.of(0, limit));
+        }
+        return productService.getProductsInOrder(priceIndex.findTopIds(limit));
     }
 
     @Transactional(readOnly = true)
@@ -80,4 +103,16 @@ public class StatsService {
     public List<Category> getCategoriesWithMinProducts(int minProducts) {
         return categoryRepository.findCategoriesWithMinProducts(minProducts);
     }
+
+    public Map<String, Object> getProductCacheStats() {
+        return productCache.stats();
+    }
+
+    public Map<String, Object> getSkuFilterStats() {
+        return skuFilter.stats();
+    }
+
+    public List<Map<String, Object>> getHotInventoryDrift(boolean reconcile) {
+        return hotInventory.checkDrift(reconcile);
+    }
 }
@@ -0,0 +1,35 @@
+package com.formation.products.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UUIDv7 order numbers (RFC 9562): 48-bit Unix milliseconds, then a 12-bit counter in place of
+ * rand_a, then 62 random bits. Their string form sorts by creation time.
+ * Within this instance numbers are strictly increasing: the timestamp and counter are advanced
+ * together with a compare-and-set, without locking. When the counter overflows, or the clock
+ * goes backwards, the timestamp is carried forward instead of repeating a value. Across
+ * instances numbers sort by millisecond, and the random bits keep them unique.
+ */
+@Component
+public class TimeOrderedOrderNumberGenerator implements OrderNumberGenerator {
+
+    private static final int COUNTER_BITS = 12;
+
+    /** Last timestamp and counter handed out, as (millis << 12) | counter. */
+    private final AtomicLong last = new AtomicLong();
+
+    @Override
+    public String next() {
+        long now = System.currentTimeMillis() << COUNTER_BITS;
+        long stamp = last.accumulateAndGet(now, (previous, current) -> Math.max(previous + 1, current));
+        long mostSignificant = (stamp >>> COUNTER_BITS) << 16
+                | 0x7000L
+                | (stamp & ((1L << COUNTER_BITS) - 1));
+        long leastSignificant = ThreadLocalRandom.current().nextLong() >>> 2 | 0x8000_0000_0000_0000L;
+        return new UUID(mostSignificant, leastSignificant).toString();
+    }
+}
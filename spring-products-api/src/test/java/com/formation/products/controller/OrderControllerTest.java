@@ -0,0 +1,88 @@
+package com.formation.products.controller;
+
+import com.formation.products.handler.GlobalExceptionHandler;
+import com.formation.products.service.OrderIdempotencyService;
+import com.formation.products.service.OrderIngestionService;
+import com.formation.products.service.OrderService;
+import com.formation.products.service.ProductStockService;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Asynchronous order submission when the ingestion queue is full. The writers are never
+ * started, so queued orders stay queued.
+ */
+class OrderControllerTest {
+
+    private ValidatorFactory validatorFactory;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        // Real methods for the order validated on submission; nothing else is called.
+        OrderService orderService = mock(OrderService.class, withSettings().defaultAnswer(CALLS_REAL_METHODS));
+        OrderIngestionService orderIngestionService = new OrderIngestionService(1, 1, 50, orderService,
+                mock(ProductStockService.class), mock(TransactionTemplate.class), validatorFactory.getValidator());
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new OrderController(orderService, orderIngestionService, mock(OrderIdempotencyService.class)))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void submitOrderAnswers429WhenTheQueueIsFull() throws Exception {
+        mockMvc.perform(submitOrder())
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+
+        mockMvc.perform(submitOrder())
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.status").value(429))
+                .andExpect(jsonPath("$.path").value("/api/v1/orders/requests"));
+    }
+
+    @Test
+    void invalidOrderIsRejectedBeforeTakingASlotInTheQueue() throws Exception {
+        mockMvc.perform(post("/api/v1/orders/requests")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerName\":\"Alice\",\"productsAndQuantities\":{\"1\":0}}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(submitOrder())
+                .andExpect(status().isAccepted());
+    }
+
+    private static RequestBuilder submitOrder() {
+        String orderDate = LocalDateTime.now().minusDays(1).withNano(0).toString();
+        return post("/api/v1/orders/requests")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"customerName\":\"Alice\",\"customerEmail\":\"alice@example.com\","
+                        + "\"productsAndQuantities\":{\"1\":2},\"orderDate\":\"" + orderDate + "\"}");
+    }
+}
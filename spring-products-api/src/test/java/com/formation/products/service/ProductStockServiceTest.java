@@ -0,0 +1,155 @@
+package com.formation.products.service;
+
+import com.formation.products.dto.StockAdjustment;
+import com.formation.products.dto.StockAdjustmentResult;
+import com.formation.products.dto.StockAdjustmentResult.Status;
+import com.formation.products.exception.OrderStockException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Hot inventory paths of stock adjustments and order reservations, against an embedded H2
+ * database: net deltas are checked once per product, and deltas applied in memory are released
+ * when the surrounding transaction rolls back.
+ */
+class ProductStockServiceTest {
+
+    private static final long LAPTOP = 1L;
+    private static final long MOUSE = 2L;
+
+    private EmbeddedDatabase database;
+    private HotInventory hotInventory;
+    private ProductStockService productStockService;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        // Stands in for PostgreSQL's pg_try_advisory_lock: any non-zero key reads as acquired.
+        jdbcTemplate.execute("CREATE ALIAS pg_try_advisory_lock FOR 'java.lang.Math.abs(long)'");
+        jdbcTemplate.execute("CREATE TABLE products (id BIGINT PRIMARY KEY, name VARCHAR(200), stock INT NOT NULL, "
+                + "version BIGINT DEFAULT 0 NOT NULL, updated_at TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO products (id, name, stock) VALUES (?, ?, ?)", LAPTOP, "Laptop", 5);
+        jdbcTemplate.update("INSERT INTO products (id, name, stock) VALUES (?, ?, ?)", MOUSE, "Mouse", 5);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(database);
+        ProductCache productCache = mock(ProductCache.class);
+        ProductChangeFeed productChangeFeed = mock(ProductChangeFeed.class);
+        hotInventory = new HotInventory(true, Set.of(LAPTOP, MOUSE), jdbcTemplate, database,
+                transactionManager, productCache, productChangeFeed);
+        hotInventory.loadCounters();
+        productStockService = new ProductStockService(jdbcTemplate, productCache, hotInventory, productChangeFeed);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hotInventory.flushOnShutdown();
+        database.shutdown();
+    }
+
+    @Test
+    void adjustStocksAppliesTheNetDeltaOfAProduct() {
+        // -7 alone would be rejected; the net delta of the batch is -5.
+        List<StockAdjustmentResult> results = productStockService.adjustStocks(List.of(
+                new StockAdjustment(LAPTOP, 2),
+                new StockAdjustment(LAPTOP, -7)));
+
+        assertThat(results).extracting(StockAdjustmentResult::getStatus).containsExactly(Status.UPDATED, Status.UPDATED);
+        assertThat(results).extracting(StockAdjustmentResult::getStock).containsExactly(0, 0);
+        assertThat(hotInventory.available(LAPTOP)).isZero();
+    }
+
+    @Test
+    void adjustStocksRejectsEveryAdjustmentOfAProductWhoseNetDeltaIsTooLow() {
+        // -4 and -3 both fit alone, but not together.
+        List<StockAdjustmentResult> results = productStockService.adjustStocks(List.of(
+                new StockAdjustment(LAPTOP, -4),
+                new StockAdjustment(MOUSE, -1),
+                new StockAdjustment(LAPTOP, -3)));
+
+        assertThat(results).extracting(StockAdjustmentResult::getStatus)
+                .containsExactly(Status.INSUFFICIENT_STOCK, Status.UPDATED, Status.INSUFFICIENT_STOCK);
+        assertThat(results).extracting(StockAdjustmentResult::getStock).containsExactly(5, 4, 5);
+        assertThat(hotInventory.available(LAPTOP)).isEqualTo(5);
+        assertThat(hotInventory.available(MOUSE)).isEqualTo(4);
+    }
+
+    @Test
+    void adjustStocksReleasesHotDeltasWhenTheTransactionRollsBack() {
+        transactionTemplate.executeWithoutResult(status -> {
+            productStockService.adjustStocks(List.of(new StockAdjustment(LAPTOP, -2), new StockAdjustment(MOUSE, 3)));
+            assertThat(hotInventory.available(LAPTOP)).isEqualTo(3);
+            assertThat(hotInventory.available(MOUSE)).isEqualTo(8);
+            status.setRollbackOnly();
+        });
+
+        assertThat(hotInventory.available(LAPTOP)).isEqualTo(5);
+        assertThat(hotInventory.available(MOUSE)).isEqualTo(5);
+    }
+
+    @Test
+    void adjustStocksKeepsHotDeltasWhenTheTransactionCommits() {
+        transactionTemplate.executeWithoutResult(status ->
+                productStockService.adjustStocks(List.of(new StockAdjustment(LAPTOP, -2))));
+
+        assertThat(hotInventory.available(LAPTOP)).isEqualTo(3);
+    }
+
+    @Test
+    void rollbackOfAConsumedRestockLeavesTheCounterUntouched() {
+        transactionTemplate.executeWithoutResult(status -> {
+            productStockService.adjustStocks(List.of(new StockAdjustment(LAPTOP, 3)));
+            // Another request sells the restocked units before the rollback.
+            hotInventory.adjust(LAPTOP, -8);
+            status.setRollbackOnly();
+        });
+
+        assertThat(hotInventory.available(LAPTOP)).isZero();
+    }
+
+    @Test
+    void reserveReleasesHotReservationsWhenTheTransactionRollsBack() {
+        transactionTemplate.executeWithoutResult(status -> {
+            productStockService.reserve(Map.of(LAPTOP, 2, MOUSE, 1));
+            status.setRollbackOnly();
+        });
+
+        assertThat(hotInventory.available(LAPTOP)).isEqualTo(5);
+        assertThat(hotInventory.available(MOUSE)).isEqualTo(5);
+    }
+
+    @Test
+    void rejectedReservationReleasesTheLinesAlreadyReserved() {
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+                productStockService.reserve(Map.of(LAPTOP, 2, MOUSE, 6))))
+                .isInstanceOfSatisfying(OrderStockException.class, ex -> {
+                    assertThat(ex.getShortages()).hasSize(1);
+                    assertThat(ex.getShortages().get(0).getProductId()).isEqualTo(MOUSE);
+                    assertThat(ex.getShortages().get(0).getProductName()).isEqualTo("Mouse");
+                    assertThat(ex.getShortages().get(0).getAvailable()).isEqualTo(5);
+                });
+
+        assertThat(hotInventory.available(LAPTOP)).isEqualTo(5);
+        assertThat(hotInventory.available(MOUSE)).isEqualTo(5);
+    }
+}